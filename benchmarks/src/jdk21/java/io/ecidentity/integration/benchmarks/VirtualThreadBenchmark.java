@@ -0,0 +1,105 @@
+package io.ecidentity.integration.benchmarks;
+
+import io.ecidentity.integration.client.AuthorityConnection;
+import io.ecidentity.integration.client.BlockingAuthClient;
+import io.ecidentity.integration.testing.FakeAuthority;
+import io.ecidentity.integration.utils.CryptoUtils;
+import io.ecidentity.protocol.authority.AuthStatusResponsePayload;
+import io.ecidentity.protocol.types.KeyEntryTypeProtocol;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Completed auth sessions per second when 10k sessions run at once on the blocking client, each
+ * holding its thread until the fake authority reports the final status: one virtual thread per
+ * session against a pool of platform threads, which caps the sessions in flight at its size. Each
+ * iteration runs at least one batch of 10k sessions, which takes several seconds.
+ * <p>
+ * Needs a Java 21 runtime and is only built by the {@code jdk21} profile.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 1, time = 1)
+@Measurement(iterations = 3, time = 1)
+@Fork(1)
+public class VirtualThreadBenchmark {
+
+    private static final int SESSIONS = 10_000;
+    private static final int PLATFORM_THREADS = 200;
+    private static final long PENDING_MILLIS = 1000;
+    private static final String ALIAS = "client";
+    private static final char[] PASSWORD = "password".toCharArray();
+
+    @Param({"virtual", "platform"})
+    public String threads;
+
+    private FakeAuthority authority;
+    private AuthorityConnection connection;
+    private BlockingAuthClient client;
+    private ExecutorService executor;
+    private List<Callable<AuthStatusResponsePayload>> sessions;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        authority = new FakeAuthority.Builder()
+                .withPendingDuration(PENDING_MILLIS, TimeUnit.MILLISECONDS)
+                .withStatusInterval(PENDING_MILLIS, TimeUnit.MILLISECONDS)
+                .withThreads(Runtime.getRuntime().availableProcessors())
+                .build();
+        connection = new AuthorityConnection.Builder(authority.channelBuilder()).build();
+        client = new BlockingAuthClient.Builder(connection)
+                .withAccessKey("benchmark")
+                .withKeyStore(FakeAuthority.newClientKeyStore(ALIAS, PASSWORD))
+                .withKeyAlias(ALIAS)
+                .withPassword(PASSWORD)
+                .build();
+        executor = threads.equals("virtual")
+                ? Executors.newVirtualThreadPerTaskExecutor()
+                : Executors.newFixedThreadPool(PLATFORM_THREADS);
+        byte[] hash = CryptoUtils.sha256(new byte[]{1});
+        sessions = new ArrayList<>(SESSIONS);
+        for (int i = 0; i < SESSIONS; i++) {
+            sessions.add(() -> client.auth("mail@mail.com", KeyEntryTypeProtocol.EMAIL, hash, false, false, false));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        executor.shutdownNow();
+        client.shutdown();
+        connection.shutdown();
+        authority.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SESSIONS)
+    public int auth() throws Exception {
+        int completed = 0;
+        for (Future<AuthStatusResponsePayload> session : executor.invokeAll(sessions)) {
+            session.get();
+            completed++;
+        }
+        return completed;
+    }
+}
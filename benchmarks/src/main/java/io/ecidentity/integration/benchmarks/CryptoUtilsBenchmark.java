@@ -0,0 +1,111 @@
+package io.ecidentity.integration.benchmarks;
+
+import io.ecidentity.integration.testing.TestCertificates;
+import io.ecidentity.integration.utils.CertificateCache;
+import io.ecidentity.integration.utils.CryptoUtils;
+import io.ecidentity.integration.utils.PrecomputedSigner;
+import io.ecidentity.integration.utils.PrecomputedVerifier;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.security.KeyPair;
+import java.security.MessageDigest;
+import java.security.Signature;
+import java.security.cert.X509Certificate;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hashing and verification through {@link CryptoUtils}, which reuses its engines per thread, against
+ * the precomputed verifier and against the former {@code Legacy} code that looked up a new engine on
+ * every call. {@link CryptoUtils#sign} sets up a new engine on every call, as it keeps no private
+ * keys, and is measured against the precomputed signer.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CryptoUtilsBenchmark {
+
+    @Param({"32", "1024", "65536"})
+    public int size;
+
+    private KeyPair keys;
+    private byte[] data;
+    private byte[] hash;
+    private byte[] signature;
+    private PrecomputedSigner signer;
+    private PrecomputedVerifier verifier;
+    private byte[] encodedCertificate;
+
+    @Setup
+    public void setUp() throws Exception {
+        keys = TestCertificates.newKeyPair();
+        data = new byte[size];
+        new Random(size).nextBytes(data);
+        hash = CryptoUtils.sha256(data);
+        signature = CryptoUtils.sign(hash, keys.getPrivate());
+        signer = new PrecomputedSigner(keys.getPrivate());
+        verifier = new PrecomputedVerifier(keys.getPublic());
+        encodedCertificate = TestCertificates.issue(TestCertificates.userName(), keys).getEncoded();
+    }
+
+    @Benchmark
+    public byte[] sha256() {
+        return CryptoUtils.sha256(data);
+    }
+
+    @Benchmark
+    public byte[] sha256Legacy() throws Exception {
+        return MessageDigest.getInstance("SHA-256").digest(data);
+    }
+
+    @Benchmark
+    public byte[] sign() throws Exception {
+        return CryptoUtils.sign(hash, keys.getPrivate());
+    }
+
+    @Benchmark
+    public byte[] signPrecomputed() throws Exception {
+        return signer.sign(hash);
+    }
+
+    @Benchmark
+    public Boolean verify() throws Exception {
+        return CryptoUtils.verify(hash, keys.getPublic(), signature);
+    }
+
+    @Benchmark
+    public boolean verifyLegacy() throws Exception {
+        Signature signer = Signature.getInstance("SHA256withECDSA");
+        signer.initVerify(keys.getPublic());
+        signer.update(hash);
+        return signer.verify(signature);
+    }
+
+    @Benchmark
+    public boolean verifyPrecomputed() throws Exception {
+        return verifier.verify(hash, signature);
+    }
+
+    @Benchmark
+    public X509Certificate decodeX509Certificate() throws Exception {
+        return CryptoUtils.decodeX509Certificate(encodedCertificate);
+    }
+
+    @Benchmark
+    public X509Certificate parseX509Certificate() throws Exception {
+        return CertificateCache.parse(encodedCertificate);
+    }
+}
@@ -0,0 +1,109 @@
+package io.ecidentity.integration.benchmarks;
+
+import io.ecidentity.integration.testing.TestCertificates;
+import io.ecidentity.integration.utils.EcStyle;
+import org.bouncycastle.asn1.ASN1ObjectIdentifier;
+import org.bouncycastle.asn1.x500.AttributeTypeAndValue;
+import org.bouncycastle.asn1.x500.RDN;
+import org.bouncycastle.asn1.x500.X500Name;
+import org.bouncycastle.asn1.x500.style.IETFUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.Hashtable;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Name style lookups and rendering with all threads sharing one subject, as on the subject
+ * extraction path of a busy client. The {@code legacy} benchmarks use the original synchronized
+ * {@code Hashtable} and {@code StringBuffer} implementation as a baseline. Run with {@code -t} to
+ * change the number of contending threads.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(8)
+@Fork(1)
+public class EcStyleBenchmark {
+
+    private X500Name subject;
+    private ASN1ObjectIdentifier[] types;
+
+    @Setup
+    public void setUp() {
+        subject = TestCertificates.userName();
+        List<ASN1ObjectIdentifier> list = new ArrayList<>();
+        for (RDN rdn : subject.getRDNs()) {
+            for (AttributeTypeAndValue value : rdn.getTypesAndValues()) list.add(value.getType());
+        }
+        types = list.toArray(new ASN1ObjectIdentifier[0]);
+    }
+
+    @Benchmark
+    public void displayNames(Blackhole blackhole) {
+        for (ASN1ObjectIdentifier type : types) blackhole.consume(EcStyle.INSTANCE.oidToDisplayName(type));
+    }
+
+    @Benchmark
+    public void legacyDisplayNames(Blackhole blackhole) {
+        for (ASN1ObjectIdentifier type : types) blackhole.consume(LegacyStyle.SYMBOLS.get(type));
+    }
+
+    @Benchmark
+    public String render() {
+        return EcStyle.INSTANCE.toString(subject);
+    }
+
+    @Benchmark
+    public String legacyRender() {
+        StringBuffer buffer = new StringBuffer();
+        boolean first = true;
+        for (RDN rdn : subject.getRDNs()) {
+            if (first) first = false;
+            else buffer.append(',');
+            IETFUtils.appendRDN(buffer, rdn, LegacyStyle.SYMBOLS);
+        }
+        return buffer.toString();
+    }
+
+    @Benchmark
+    public ASN1ObjectIdentifier attrNameToOID() {
+        return EcStyle.INSTANCE.attrNameToOID("DocumentNumber");
+    }
+
+    @Benchmark
+    public ASN1ObjectIdentifier legacyAttrNameToOID() {
+        return IETFUtils.decodeAttrName("DocumentNumber", LegacyStyle.LOOK_UP);
+    }
+
+    private static final class LegacyStyle {
+        private static final Hashtable<ASN1ObjectIdentifier, String> SYMBOLS = new Hashtable<>();
+        private static final Hashtable<String, ASN1ObjectIdentifier> LOOK_UP = new Hashtable<>();
+
+        static {
+            ASN1ObjectIdentifier[] oids = {EcStyle.id, EcStyle.emailAddress, EcStyle.givenName, EcStyle.surname,
+                    EcStyle.dateOfBirth, EcStyle.placeOfBirth, EcStyle.countryOfCitizenship, EcStyle.gender,
+                    EcStyle.documentNumber, EcStyle.dateOfExpire, EcStyle.documentClass, EcStyle.documentCountry,
+                    EcStyle.personalNumber, EcStyle.portrait};
+            for (ASN1ObjectIdentifier oid : oids) {
+                String symbol = EcStyle.INSTANCE.oidToDisplayName(oid);
+                SYMBOLS.put(oid, symbol);
+                LOOK_UP.put(symbol.toLowerCase(), oid);
+            }
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package io.ecidentity.integration.benchmarks;
+
+import com.google.protobuf.ByteString;
+import io.ecidentity.protocol.authority.AuthStatusResponse;
+import io.ecidentity.protocol.authority.AuthStatusResponsePayload;
+import io.ecidentity.protocol.authority.CertificateResponse;
+import io.ecidentity.protocol.authority.CertificateResponsePayload;
+import io.ecidentity.protocol.types.ResultCodeExtProtocol;
+import org.bouncycastle.jce.provider.BouncyCastleProvider;
+
+import java.security.PrivateKey;
+import java.security.Security;
+import java.security.cert.X509Certificate;
+import java.util.Random;
+
+import static io.ecidentity.integration.utils.CryptoUtils.sha256;
+import static io.ecidentity.integration.utils.CryptoUtils.sign;
+
+/**
+ * Signed authority responses shaped like the ones the SDK handles in production. Keys and
+ * certificates come from {@link io.ecidentity.integration.testing.TestCertificates}.
+ */
+public final class Fixtures {
+
+    public enum Frame {
+        MINIMAL,
+        CERTIFICATE,
+        CERTIFICATE_AND_REPORT
+    }
+
+    private static final int REPORT_SIZE = 64 * 1024;
+
+    static {
+        Security.addProvider(new BouncyCastleProvider());
+    }
+
+    private Fixtures() {
+    }
+
+    public static CertificateResponse certificateResponse(X509Certificate certificate, PrivateKey key) throws Exception {
+        CertificateResponsePayload payload = CertificateResponsePayload.newBuilder()
+                .setResultCode(ResultCodeExtProtocol.OK)
+                .setServerCertificate(ByteString.copyFrom(certificate.getEncoded()))
+                .build();
+        return CertificateResponse.newBuilder()
+                .setPayload(payload)
+                .setSignature(ByteString.copyFrom(sign(sha256(payload.toByteArray()), key)))
+                .build();
+    }
+
+    public static AuthStatusResponse authStatusResponse(Frame frame, byte[] certificate, PrivateKey authorityKey) throws Exception {
+        Random random = new Random(frame.ordinal());
+        byte[] signedHash = new byte[72];
+        random.nextBytes(signedHash);
+        AuthStatusResponsePayload.Builder payload = AuthStatusResponsePayload.newBuilder()
+                .setResultCode(ResultCodeExtProtocol.OK)
+                .setSessionId("7c1f1c4e-2b7a-4d55-9a1e-3f6f1f0b9d2a")
+                .setSignedHash(ByteString.copyFrom(signedHash))
+                .putSubject("GivenName", "Jane")
+                .putSubject("Surname", "Doe")
+                .putSubject("CountryOfCitizenship", "EE");
+        if (frame != Frame.MINIMAL) payload.setCertificate(ByteString.copyFrom(certificate));
+        if (frame == Frame.CERTIFICATE_AND_REPORT) {
+            byte[] report = new byte[REPORT_SIZE];
+            random.nextBytes(report);
+            payload.setReport(ByteString.copyFrom(report));
+        }
+        AuthStatusResponsePayload built = payload.build();
+        return AuthStatusResponse.newBuilder()
+                .setPayload(built)
+                .setSignature(ByteString.copyFrom(sign(sha256(built.toByteArray()), authorityKey)))
+                .build();
+    }
+}
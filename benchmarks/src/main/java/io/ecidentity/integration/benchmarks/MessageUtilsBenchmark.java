@@ -0,0 +1,49 @@
+package io.ecidentity.integration.benchmarks;
+
+import com.google.protobuf.AbstractMessage;
+import io.ecidentity.integration.testing.TestCertificates;
+import io.ecidentity.integration.utils.MessageUtils;
+import io.ecidentity.protocol.authority.AuthStatusResponse;
+import io.ecidentity.protocol.types.ResultCodeExtProtocol;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.security.KeyPair;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MessageUtilsBenchmark {
+
+    private AuthStatusResponse response;
+    private AbstractMessage payload;
+
+    @Setup
+    public void setUp() throws Exception {
+        KeyPair authority = TestCertificates.newKeyPair();
+        response = Fixtures.authStatusResponse(Fixtures.Frame.MINIMAL, null, authority.getPrivate());
+        payload = MessageUtils.getPayload(response);
+    }
+
+    @Benchmark
+    public AbstractMessage getPayload() {
+        return MessageUtils.getPayload(response);
+    }
+
+    @Benchmark
+    public ResultCodeExtProtocol getResultCode() {
+        return MessageUtils.getResultCode(payload);
+    }
+}
@@ -0,0 +1,74 @@
+package io.ecidentity.integration.benchmarks;
+
+import io.ecidentity.integration.testing.TestCertificates;
+import io.ecidentity.integration.utils.CertificateCache;
+import io.ecidentity.integration.utils.CryptoUtils;
+import io.ecidentity.integration.utils.SignedHashVerifier;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.security.KeyPair;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Verified signatures per second of a user's signed hash against the user's certificate: decoding
+ * the certificate for every signature as a baseline, with the key cached by fingerprint, and a batch
+ * of one user's signatures verified in parallel on all cores.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SignedHashBenchmark {
+
+    private static final int BATCH_SIZE = 256;
+
+    private final SignedHashVerifier verifier = new SignedHashVerifier(1024, 0, TimeUnit.SECONDS);
+
+    private byte[] certificate;
+    private byte[] hash;
+    private byte[] signedHash;
+    private List<SignedHashVerifier.SignedHash> batch;
+
+    @Setup
+    public void setUp() throws Exception {
+        KeyPair keys = TestCertificates.newKeyPair();
+        certificate = TestCertificates.issue(TestCertificates.userName(), keys).getEncoded();
+        hash = CryptoUtils.sha256(new byte[]{-1});
+        signedHash = CryptoUtils.sign(hash, keys.getPrivate());
+        batch = new ArrayList<>(BATCH_SIZE);
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            byte[] batchHash = CryptoUtils.sha256(new byte[]{(byte) i});
+            batch.add(new SignedHashVerifier.SignedHash(batchHash, certificate, CryptoUtils.sign(batchHash, keys.getPrivate())));
+        }
+    }
+
+    @Benchmark
+    public boolean baseline() throws Exception {
+        return CryptoUtils.verify(hash, CertificateCache.parse(certificate).getPublicKey(), signedHash);
+    }
+
+    @Benchmark
+    public boolean verify() throws Exception {
+        return verifier.verify(hash, certificate, signedHash);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public boolean[] verifyAll() {
+        return verifier.verifyAll(batch);
+    }
+}
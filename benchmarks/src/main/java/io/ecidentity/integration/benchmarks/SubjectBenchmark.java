@@ -0,0 +1,103 @@
+package io.ecidentity.integration.benchmarks;
+
+import io.ecidentity.integration.testing.TestCertificates;
+import io.ecidentity.integration.utils.CryptoUtils;
+import io.ecidentity.integration.utils.EcStyle;
+import io.ecidentity.integration.utils.SubjectExtractor;
+import org.bouncycastle.asn1.ASN1Encodable;
+import org.bouncycastle.asn1.ASN1GeneralizedTime;
+import org.bouncycastle.asn1.DERIA5String;
+import org.bouncycastle.asn1.DERPrintableString;
+import org.bouncycastle.asn1.DERUTF8String;
+import org.bouncycastle.asn1.x500.X500Name;
+import org.bouncycastle.cert.jcajce.JcaX509CertificateHolder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.security.cert.CertificateEncodingException;
+import java.security.cert.X509Certificate;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.AbstractMap;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Subject extraction from an identity certificate: the original stream-based implementation as a
+ * baseline, decoding without the cache, and the cached lookups of {@link CryptoUtils#getSubjectData}
+ * for a certificate object and for its encoding.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SubjectBenchmark {
+
+    private X509Certificate certificate;
+    private byte[] encoded;
+
+    @Setup
+    public void setUp() throws Exception {
+        certificate = TestCertificates.issue(TestCertificates.userName(), TestCertificates.newKeyPair());
+        encoded = certificate.getEncoded();
+    }
+
+    @Benchmark
+    public Map<String, String> baseline() throws Exception {
+        return legacySubjectData(certificate);
+    }
+
+    @Benchmark
+    public Map<String, String> decode() {
+        return SubjectExtractor.decode(certificate);
+    }
+
+    @Benchmark
+    public Map<String, String> cached() throws Exception {
+        return CryptoUtils.getSubjectData(certificate);
+    }
+
+    @Benchmark
+    public Map<String, String> cachedEncoded() {
+        return CryptoUtils.getSubjectData(encoded);
+    }
+
+    private static Map<String, String> legacySubjectData(X509Certificate certificate) throws CertificateEncodingException {
+        X500Name x500Name = new JcaX509CertificateHolder(certificate).getSubject();
+
+        return Arrays.stream(x500Name.getAttributeTypes()).map(x -> {
+            String key = EcStyle.INSTANCE.oidToDisplayName(x);
+            ASN1Encodable encodable = x500Name.getRDNs(x)[0].getFirst().getValue();
+            String value;
+
+            if (encodable instanceof ASN1GeneralizedTime) {
+                try {
+                    value = new SimpleDateFormat(CryptoUtils.DATE_FORMAT).format(((ASN1GeneralizedTime) encodable).getDate());
+                } catch (ParseException e) {
+                    value = "";
+                }
+            } else if (encodable instanceof DERPrintableString) {
+                value = ((DERPrintableString) encodable).getString();
+            } else if (encodable instanceof DERIA5String) {
+                value = ((DERIA5String) encodable).getString();
+            } else if (encodable instanceof DERUTF8String) {
+                value = ((DERUTF8String) encodable).getString();
+            } else {
+                value = encodable.toString();
+            }
+            return new AbstractMap.SimpleEntry<>(key, value);
+        }).collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
+    }
+}
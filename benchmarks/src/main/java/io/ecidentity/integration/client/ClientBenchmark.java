@@ -0,0 +1,158 @@
+package io.ecidentity.integration.client;
+
+import com.google.protobuf.AbstractMessage;
+import io.ecidentity.integration.benchmarks.Fixtures;
+import io.ecidentity.integration.testing.FakeAuthority;
+import io.ecidentity.integration.testing.TestCertificates;
+import io.ecidentity.protocol.authority.AuthStatusResponse;
+import io.ecidentity.protocol.authority.CertificateRequest;
+import io.ecidentity.protocol.authority.CertificateResponse;
+import io.ecidentity.protocol.authority.InitAuthRequest;
+import io.ecidentity.protocol.authority.InitAuthRequestPayload;
+import io.ecidentity.protocol.authority.IntegrationAuthServiceGrpc;
+import io.ecidentity.protocol.authority.IntegrationTrustServiceGrpc;
+import io.ecidentity.protocol.types.KeyEntryTypeProtocol;
+import io.grpc.MethodDescriptor;
+import io.grpc.Server;
+import io.grpc.inprocess.InProcessChannelBuilder;
+import io.grpc.inprocess.InProcessServerBuilder;
+import io.grpc.stub.StreamObserver;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.security.KeyPair;
+import java.security.KeyStore;
+import java.security.cert.X509Certificate;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Client side of a call without the network: building and signing a request envelope, and
+ * verifying an {@code AuthStatusResponse} frame against the authority certificate. Lives in the
+ * client package to reach the members the public clients are built on.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ClientBenchmark {
+
+    private static final String CLIENT_ALIAS = "client";
+    private static final char[] PASSWORD = "benchmark".toCharArray();
+
+    @Param({"MINIMAL", "CERTIFICATE", "CERTIFICATE_AND_REPORT"})
+    public Fixtures.Frame frame;
+
+    private Server server;
+    private AuthorityConnection connection;
+    private ClientBase client;
+    private ClientBase precomputedClient;
+    private MethodDescriptor.Marshaller<AuthStatusResponse> marshaller;
+    private byte[] frameBytes;
+    private AuthStatusResponse parsed;
+    private InitAuthRequestPayload initPayload;
+
+    @Setup
+    public void setUp() throws Exception {
+        KeyPair authority = TestCertificates.newKeyPair();
+        X509Certificate authorityCertificate = TestCertificates.issue(TestCertificates.userName(), authority);
+        CertificateResponse certificateResponse = Fixtures.certificateResponse(authorityCertificate, authority.getPrivate());
+
+        String name = "benchmark-" + UUID.randomUUID();
+        server = InProcessServerBuilder.forName(name)
+                .directExecutor()
+                .addService(new IntegrationTrustServiceGrpc.IntegrationTrustServiceImplBase() {
+                    @Override
+                    public void cert(CertificateRequest request, StreamObserver<CertificateResponse> responseObserver) {
+                        responseObserver.onNext(certificateResponse);
+                        responseObserver.onCompleted();
+                    }
+                })
+                .build()
+                .start();
+        connection = new AuthorityConnection.Builder(InProcessChannelBuilder.forName(name).directExecutor()).build();
+        KeyStore keyStore = FakeAuthority.newClientKeyStore(CLIENT_ALIAS, PASSWORD);
+        client = new ClientBase(connection, keyStore, CLIENT_ALIAS, PASSWORD, Runnable::run);
+        precomputedClient = new ClientBase(connection, false, keyStore, CLIENT_ALIAS, PASSWORD, Runnable::run, true);
+
+        AuthStatusResponse response = Fixtures.authStatusResponse(frame, authorityCertificate.getEncoded(), authority.getPrivate());
+        frameBytes = response.toByteArray();
+        marshaller = new PayloadCapturingInterceptor()
+                .capturing(IntegrationAuthServiceGrpc.getCheckMethod())
+                .getResponseMarshaller();
+        parsed = parse();
+
+        initPayload = InitAuthRequestPayload.newBuilder()
+                .setEmail("mail@mail.com")
+                .setType(KeyEntryTypeProtocol.EMAIL)
+                .setExtractSubject(true)
+                .build();
+    }
+
+    @TearDown
+    public void tearDown() {
+        client.shutdown();
+        precomputedClient.shutdown();
+        connection.shutdown();
+        server.shutdownNow();
+    }
+
+    /**
+     * Verifies a frame that was already parsed by the capturing marshaller.
+     */
+    @Benchmark
+    public AbstractMessage handleResponse() {
+        return client.handleResponse(parsed);
+    }
+
+    /**
+     * Parses the frame as it arrives from the transport and verifies it.
+     */
+    @Benchmark
+    public AbstractMessage parseAndHandle() {
+        return client.handleResponse(parse());
+    }
+
+    /**
+     * Encodes and signs the payload and wraps it into the request envelope.
+     */
+    @Benchmark
+    public InitAuthRequest requestEnvelope() throws Exception {
+        return envelope(client);
+    }
+
+    /**
+     * Same as {@link #requestEnvelope()} with a client that signs with a precomputed signer.
+     */
+    @Benchmark
+    public InitAuthRequest requestEnvelopePrecomputed() throws Exception {
+        return envelope(precomputedClient);
+    }
+
+    private InitAuthRequest envelope(ClientBase signer) throws Exception {
+        ClientBase.SignedPayload signed = signer.signPayload(initPayload);
+        return InitAuthRequest.newBuilder()
+                .setAccessKeyId("access-key")
+                .setSignature(signed.getSignature())
+                .setPayload(initPayload)
+                .setUnknownFields(signed.getEncodedPayloadField())
+                .build();
+    }
+
+    private AuthStatusResponse parse() {
+        return marshaller.parse(new ByteArrayInputStream(frameBytes));
+    }
+}
@@ -0,0 +1,81 @@
+package io.ecidentity.integration.loadgen;
+
+import io.ecidentity.integration.client.ReactorAuthClient;
+import io.ecidentity.integration.client.ReactorSignClient;
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+import static io.ecidentity.integration.utils.CryptoUtils.sha256;
+
+/**
+ * One unit of load. The latency of a flow spans all of its calls.
+ */
+enum Flow {
+
+    /**
+     * A single {@code auth} stream, from start to the final status.
+     */
+    AUTH("auth") {
+        @Override
+        Mono<?> start(ReactorAuthClient auth, ReactorSignClient sign, LoadOptions options) {
+            return auth.auth(options.email, options.type, randomHash(), false, false, false).last();
+        }
+    },
+
+    /**
+     * {@code init}, then a {@code check} stream until the final status.
+     */
+    INIT_CHECK("init-check") {
+        @Override
+        Mono<?> start(ReactorAuthClient auth, ReactorSignClient sign, LoadOptions options) {
+            return auth.init(options.email, options.type, randomHash(), false, false, false)
+                    .flatMap(init -> auth.check(init.getSessionId()).last());
+        }
+    },
+
+    /**
+     * Sign {@code init}, then a {@code hash} stream until the hash is signed.
+     */
+    SIGN("sign") {
+        @Override
+        Mono<?> start(ReactorAuthClient auth, ReactorSignClient sign, LoadOptions options) {
+            return sign.init(options.email, options.type).last()
+                    .flatMap(init -> sign.hash(init.getSessionId(), randomHash()).last());
+        }
+    },
+
+    /**
+     * Auth {@code init}, then {@code cancel} of the new session.
+     */
+    CANCEL("cancel") {
+        @Override
+        Mono<?> start(ReactorAuthClient auth, ReactorSignClient sign, LoadOptions options) {
+            return auth.init(options.email, options.type, randomHash(), false, false, false)
+                    .flatMap(init -> auth.cancel(init.getSessionId()));
+        }
+    };
+
+    private final String name;
+
+    Flow(String name) {
+        this.name = name;
+    }
+
+    abstract Mono<?> start(ReactorAuthClient auth, ReactorSignClient sign, LoadOptions options);
+
+    String getName() {
+        return name;
+    }
+
+    static Flow forName(String name) {
+        for (Flow flow : values()) if (flow.name.equals(name)) return flow;
+        throw new IllegalArgumentException("Unknown flow: " + name);
+    }
+
+    private static byte[] randomHash() {
+        byte[] seed = new byte[32];
+        ThreadLocalRandom.current().nextBytes(seed);
+        return sha256(seed);
+    }
+}
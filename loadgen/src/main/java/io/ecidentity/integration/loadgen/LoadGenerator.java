@@ -0,0 +1,222 @@
+package io.ecidentity.integration.loadgen;
+
+import io.ecidentity.integration.client.AuthorityConnection;
+import io.ecidentity.integration.client.ReactorAuthClient;
+import io.ecidentity.integration.client.ReactorSignClient;
+import io.ecidentity.integration.testing.FakeAuthority;
+import org.bouncycastle.jce.provider.BouncyCastleProvider;
+import reactor.core.publisher.Mono;
+
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.security.KeyStore;
+import java.security.Security;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Drives auth and sign flows against an authority and reports latency, throughput and errors.
+ * <p>
+ * An open loop starts flows at a fixed rate no matter how many are still in flight, the way
+ * independent users arrive. A closed loop runs a fixed number of workers that each start a new flow
+ * when the previous one ends, optionally paced to a rate. Flows started during the warmup are not
+ * recorded.
+ */
+public final class LoadGenerator {
+
+    private final LoadOptions options;
+    private final ReactorAuthClient auth;
+    private final ReactorSignClient sign;
+    private final ScheduledThreadPoolExecutor scheduler;
+    private final AtomicLong outstanding = new AtomicLong();
+    private final LoadStats warmup = new LoadStats();
+    private final LoadStats measured = new LoadStats();
+
+    private long warmupEnd;
+    private long end;
+
+    private LoadGenerator(LoadOptions options, ReactorAuthClient auth, ReactorSignClient sign) {
+        this.options = options;
+        this.auth = auth;
+        this.sign = sign;
+        this.scheduler = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = new Thread(runnable, "loadgen-scheduler");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadOptions options;
+        try {
+            options = LoadOptions.parse(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println(LoadOptions.USAGE);
+            System.exit(2);
+            return;
+        }
+        if (options.help) {
+            System.out.println(LoadOptions.USAGE);
+            return;
+        }
+
+        Report report = run(options);
+        if (options.output == null) {
+            report.write(System.out);
+        } else {
+            try (PrintStream out = new PrintStream(new FileOutputStream(options.output), false, "UTF-8")) {
+                report.write(out);
+            }
+        }
+    }
+
+    /**
+     * Runs the load described by the options against the authority or a fake one, and returns the
+     * report of the measured phase.
+     */
+    static Report run(LoadOptions options) throws Exception {
+        Security.addProvider(new BouncyCastleProvider());
+
+        FakeAuthority fake = null;
+        AuthorityConnection.Builder connectionBuilder;
+        KeyStore keyStore;
+        if (options.fake) {
+            fake = new FakeAuthority.Builder()
+                    .withPendingDuration(options.fakePendingMillis, TimeUnit.MILLISECONDS)
+                    .withLatency(options.fakeLatencyMillis, options.fakeJitterMillis, TimeUnit.MILLISECONDS)
+                    .withThreads(Math.max(2, Runtime.getRuntime().availableProcessors() / 2))
+                    .build();
+            connectionBuilder = new AuthorityConnection.Builder(fake.channelBuilder());
+            keyStore = FakeAuthority.newClientKeyStore(options.alias, options.password);
+        } else {
+            connectionBuilder = new AuthorityConnection.Builder(options.host, options.port).withChannels(options.channels);
+            keyStore = KeyStore.getInstance("PKCS12");
+            try (InputStream in = new FileInputStream(options.keyStore)) {
+                keyStore.load(in, options.password);
+            }
+        }
+
+        AuthorityConnection connection = connectionBuilder.build();
+        ReactorAuthClient auth = new ReactorAuthClient.Builder(connection)
+                .withAccessKey(options.accessKey)
+                .withKeyStore(keyStore)
+                .withKeyAlias(options.alias)
+                .withPassword(options.password)
+                .build();
+        ReactorSignClient sign = new ReactorSignClient.Builder(connection)
+                .withAccessKey(options.accessKey)
+                .withKeyStore(keyStore)
+                .withKeyAlias(options.alias)
+                .withPassword(options.password)
+                .build();
+        try {
+            return new LoadGenerator(options, auth, sign).generate();
+        } finally {
+            auth.shutdown();
+            sign.shutdown();
+            connection.shutdown();
+            if (fake != null) fake.close();
+        }
+    }
+
+    private Report generate() {
+        long start = System.nanoTime();
+        warmupEnd = start + options.warmupNanos;
+        end = warmupEnd + options.durationNanos;
+
+        if (options.mode == LoadOptions.Mode.OPEN) openLoop(start);
+        else closedLoop(start);
+
+        long drainEnd = System.nanoTime() + options.drainNanos;
+        while (outstanding.get() > 0 && System.nanoTime() < drainEnd) {
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(10));
+        }
+        scheduler.shutdownNow();
+        return new Report(options, measured, outstanding.get());
+    }
+
+    private void openLoop(long start) {
+        double period = 1e9 / options.rate;
+        for (long i = 0; ; i++) {
+            long intended = start + (long) (i * period);
+            if (intended - end >= 0) break;
+            long wait = intended - System.nanoTime();
+            if (wait > 0) LockSupport.parkNanos(wait);
+            if (outstanding.get() >= options.maxOutstanding) stats(intended).shed();
+            else launch(intended, null);
+        }
+    }
+
+    private void closedLoop(long start) {
+        long period = options.rate > 0 ? (long) (1e9 * options.concurrency / options.rate) : 0;
+        for (int i = 0; i < options.concurrency; i++) {
+            new Worker(start + period * i / options.concurrency - period, period).next();
+        }
+        long wait;
+        while ((wait = end - System.nanoTime()) > 0) LockSupport.parkNanos(wait);
+    }
+
+    /**
+     * Closed loop worker. A paced worker schedules each flow one period after the previous one was
+     * due, so a slow flow delays its successors and their latency includes that delay.
+     */
+    private final class Worker {
+        private final long period;
+        private long intended;
+
+        private Worker(long intended, long period) {
+            this.intended = intended;
+            this.period = period;
+        }
+
+        private void next() {
+            long now = System.nanoTime();
+            intended = period > 0 ? intended + period : now;
+            if (intended - end >= 0) return;
+            long due = intended;
+            long delay = due - now;
+            if (delay > 0) scheduler.schedule(() -> launch(due, this::next), delay, TimeUnit.NANOSECONDS);
+            else scheduler.execute(() -> launch(due, this::next));
+        }
+    }
+
+    private void launch(long intended, Runnable onDone) {
+        LoadStats stats = stats(intended);
+        outstanding.incrementAndGet();
+        long startedAt = System.nanoTime();
+        Mono<?> flow;
+        try {
+            flow = options.flow.start(auth, sign, options);
+        } catch (RuntimeException e) {
+            flow = Mono.error(e);
+        }
+        flow.subscribe(
+                value -> {
+                },
+                error -> finish(stats, intended, startedAt, error, onDone),
+                () -> finish(stats, intended, startedAt, null, onDone));
+    }
+
+    private void finish(LoadStats stats, long intended, long startedAt, Throwable error, Runnable onDone) {
+        long now = System.nanoTime();
+        if (error == null) stats.success(now - intended, now - startedAt);
+        else stats.failure(error);
+        outstanding.decrementAndGet();
+        if (onDone == null) return;
+        try {
+            scheduler.execute(onDone);
+        } catch (RejectedExecutionException ignored) {
+            // the run is over
+        }
+    }
+
+    private LoadStats stats(long intended) {
+        return intended - warmupEnd < 0 ? warmup : measured;
+    }
+}
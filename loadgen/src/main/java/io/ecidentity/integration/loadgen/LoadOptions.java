@@ -0,0 +1,153 @@
+package io.ecidentity.integration.loadgen;
+
+import io.ecidentity.protocol.types.KeyEntryTypeProtocol;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Command line of the load generator. Options are given as {@code --name value} or {@code --name=value}.
+ */
+final class LoadOptions {
+
+    enum Mode {
+        OPEN,
+        CLOSED
+    }
+
+    enum Format {
+        TEXT,
+        JSON
+    }
+
+    static final String USAGE = String.join(System.lineSeparator(),
+            "Usage: java -jar loadgen.jar [options]",
+            "",
+            "Target (one of):",
+            "  --host <host> --port <port>   authority to load, over TLS",
+            "  --fake                        in-process fake authority, for dry runs",
+            "  --fake-pending-ms <ms>        time fake sessions stay PENDING (0)",
+            "  --fake-latency-ms <ms>        fake response latency (0)",
+            "  --fake-jitter-ms <ms>         fake response jitter (0)",
+            "",
+            "Client:",
+            "  --access-key <id>             access key id",
+            "  --keystore <file>             PKCS12 key store with the client key",
+            "  --password <password>         key store password",
+            "  --alias <alias>               key alias (client)",
+            "  --email <email>               user to authenticate or sign for",
+            "  --type <type>                 key entry type (EMAIL)",
+            "  --channels <n>                HTTP/2 connections (1)",
+            "",
+            "Load:",
+            "  --flow <flow>                 auth | init-check | sign | cancel (auth)",
+            "  --mode <mode>                 open | closed (open)",
+            "  --rate <per second>           flows started per second; required for open loop,",
+            "                                paces the workers of a closed loop when given",
+            "  --concurrency <n>             closed loop workers (16)",
+            "  --max-outstanding <n>         open loop flows in flight before new ones are shed (10000)",
+            "  --warmup <seconds>            not recorded (10)",
+            "  --duration <seconds>          recorded (60)",
+            "  --drain <seconds>             wait for flows in flight after the run (30)",
+            "",
+            "Output:",
+            "  --format <format>             text | json (text)",
+            "  --output <file>               write the report to a file instead of stdout");
+
+    String host;
+    int port;
+    boolean fake;
+    long fakePendingMillis;
+    long fakeLatencyMillis;
+    long fakeJitterMillis;
+
+    String accessKey = "load-test";
+    String keyStore;
+    char[] password = new char[0];
+    String alias = "client";
+    String email = "mail@mail.com";
+    KeyEntryTypeProtocol type = KeyEntryTypeProtocol.EMAIL;
+    int channels = 1;
+
+    Flow flow = Flow.AUTH;
+    Mode mode = Mode.OPEN;
+    double rate;
+    int concurrency = 16;
+    int maxOutstanding = 10000;
+    long warmupNanos = TimeUnit.SECONDS.toNanos(10);
+    long durationNanos = TimeUnit.SECONDS.toNanos(60);
+    long drainNanos = TimeUnit.SECONDS.toNanos(30);
+
+    Format format = Format.TEXT;
+    String output;
+
+    boolean help;
+
+    static LoadOptions parse(String[] args) {
+        Map<String, String> values = new HashMap<>();
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            if (!arg.startsWith("--")) throw new IllegalArgumentException("Unexpected argument: " + arg);
+            String name = arg.substring(2);
+            String value;
+            int separator = name.indexOf('=');
+            if (separator >= 0) {
+                value = name.substring(separator + 1);
+                name = name.substring(0, separator);
+            } else if (name.equals("fake") || name.equals("help")) {
+                value = "true";
+            } else if (i + 1 < args.length) {
+                value = args[++i];
+            } else {
+                throw new IllegalArgumentException("Missing value of --" + name);
+            }
+            values.put(name, value);
+        }
+
+        LoadOptions options = new LoadOptions();
+        for (Map.Entry<String, String> entry : values.entrySet()) {
+            String value = entry.getValue();
+            switch (entry.getKey()) {
+                case "host": options.host = value; break;
+                case "port": options.port = Integer.parseInt(value); break;
+                case "fake": options.fake = Boolean.parseBoolean(value); break;
+                case "fake-pending-ms": options.fakePendingMillis = Long.parseLong(value); break;
+                case "fake-latency-ms": options.fakeLatencyMillis = Long.parseLong(value); break;
+                case "fake-jitter-ms": options.fakeJitterMillis = Long.parseLong(value); break;
+                case "access-key": options.accessKey = value; break;
+                case "keystore": options.keyStore = value; break;
+                case "password": options.password = value.toCharArray(); break;
+                case "alias": options.alias = value; break;
+                case "email": options.email = value; break;
+                case "type": options.type = KeyEntryTypeProtocol.valueOf(value.toUpperCase()); break;
+                case "channels": options.channels = Integer.parseInt(value); break;
+                case "flow": options.flow = Flow.forName(value); break;
+                case "mode": options.mode = Mode.valueOf(value.toUpperCase()); break;
+                case "rate": options.rate = Double.parseDouble(value); break;
+                case "concurrency": options.concurrency = Integer.parseInt(value); break;
+                case "max-outstanding": options.maxOutstanding = Integer.parseInt(value); break;
+                case "warmup": options.warmupNanos = TimeUnit.SECONDS.toNanos(Long.parseLong(value)); break;
+                case "duration": options.durationNanos = TimeUnit.SECONDS.toNanos(Long.parseLong(value)); break;
+                case "drain": options.drainNanos = TimeUnit.SECONDS.toNanos(Long.parseLong(value)); break;
+                case "format": options.format = Format.valueOf(value.toUpperCase()); break;
+                case "output": options.output = value; break;
+                case "help": options.help = Boolean.parseBoolean(value); break;
+                default: throw new IllegalArgumentException("Unknown option: --" + entry.getKey());
+            }
+        }
+        if (!options.help) options.validate();
+        return options;
+    }
+
+    private void validate() {
+        if (fake == (host != null)) throw new IllegalArgumentException("Either --host and --port or --fake is required");
+        if (host != null && port <= 0) throw new IllegalArgumentException("--port is required with --host");
+        if (!fake && keyStore == null) throw new IllegalArgumentException("--keystore is required");
+        if (mode == Mode.OPEN && rate <= 0) throw new IllegalArgumentException("--rate is required for an open loop");
+        if (rate < 0) throw new IllegalArgumentException("--rate must not be negative");
+        if (concurrency < 1) throw new IllegalArgumentException("--concurrency must be at least 1");
+        if (maxOutstanding < 1) throw new IllegalArgumentException("--max-outstanding must be at least 1");
+        if (durationNanos <= 0) throw new IllegalArgumentException("--duration must be positive");
+    }
+}
@@ -0,0 +1,84 @@
+package io.ecidentity.integration.loadgen;
+
+import io.ecidentity.integration.client.ResultCodeException;
+import io.ecidentity.integration.metrics.LatencyHistogram;
+import io.grpc.StatusException;
+import io.grpc.StatusRuntimeException;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Outcomes of the flows started in one phase of a run.
+ * <p>
+ * Latency is measured from the time a flow was scheduled to start rather than from the time it
+ * actually started, so a stalled client or authority shows up in the percentiles of every flow it
+ * delayed instead of hiding behind the flows that were never sent (coordinated omission). Service
+ * time, measured from the actual start, is kept alongside for comparison.
+ */
+final class LoadStats {
+
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private final LatencyHistogram serviceTime = new LatencyHistogram();
+    private final ConcurrentMap<String, LongAdder> errors = new ConcurrentHashMap<>();
+    private final LongAdder shed = new LongAdder();
+
+    void success(long latencyNanos, long serviceTimeNanos) {
+        latency.record(latencyNanos);
+        serviceTime.record(serviceTimeNanos);
+    }
+
+    void failure(Throwable error) {
+        errors.computeIfAbsent(classify(error), key -> new LongAdder()).increment();
+    }
+
+    void shed() {
+        shed.increment();
+    }
+
+    LatencyHistogram getLatency() {
+        return latency;
+    }
+
+    LatencyHistogram getServiceTime() {
+        return serviceTime;
+    }
+
+    long getCompleted() {
+        return latency.getCount();
+    }
+
+    long getFailed() {
+        long failed = 0;
+        for (LongAdder count : errors.values()) failed += count.sum();
+        return failed;
+    }
+
+    long getShed() {
+        return shed.sum();
+    }
+
+    /**
+     * Failures by result code, gRPC status ({@code grpc:<code>}), {@code REJECTED} for calls refused
+     * by admission control, or exception type.
+     */
+    Map<String, Long> getErrors() {
+        Map<String, Long> snapshot = new TreeMap<>();
+        for (Map.Entry<String, LongAdder> entry : errors.entrySet()) snapshot.put(entry.getKey(), entry.getValue().sum());
+        return snapshot;
+    }
+
+    static String classify(Throwable error) {
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (cause instanceof ResultCodeException) return ((ResultCodeException) cause).getResultCode().name();
+            if (cause instanceof StatusRuntimeException) return "grpc:" + ((StatusRuntimeException) cause).getStatus().getCode();
+            if (cause instanceof StatusException) return "grpc:" + ((StatusException) cause).getStatus().getCode();
+            if (cause instanceof RejectedExecutionException) return "REJECTED";
+        }
+        return error.getClass().getSimpleName();
+    }
+}
@@ -0,0 +1,121 @@
+package io.ecidentity.integration.loadgen;
+
+import io.ecidentity.integration.metrics.LatencyHistogram;
+
+import java.io.PrintStream;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Writes the result of a run as a human-readable summary or as a single JSON object.
+ */
+final class Report {
+
+    private static final double[] PERCENTILES = {50, 90, 99, 99.9, 99.99};
+
+    private final LoadOptions options;
+    private final LoadStats stats;
+    private final long unfinished;
+
+    Report(LoadOptions options, LoadStats stats, long unfinished) {
+        this.options = options;
+        this.stats = stats;
+        this.unfinished = unfinished;
+    }
+
+    LoadStats getStats() {
+        return stats;
+    }
+
+    void write(PrintStream out) {
+        if (options.format == LoadOptions.Format.JSON) writeJson(out);
+        else writeText(out);
+        out.flush();
+    }
+
+    private double throughput() {
+        return stats.getCompleted() / (options.durationNanos / 1e9);
+    }
+
+    private void writeText(PrintStream out) {
+        out.printf(Locale.ROOT, "Flow %s, %s loop, %s%n", options.flow.getName(), options.mode.name().toLowerCase(Locale.ROOT),
+                options.rate > 0 ? String.format(Locale.ROOT, "%.1f/s target", options.rate) : options.concurrency + " workers");
+        out.printf(Locale.ROOT, "Completed %d, failed %d, shed %d, unfinished %d, throughput %.1f/s%n",
+                stats.getCompleted(), stats.getFailed(), stats.getShed(), unfinished, throughput());
+        writeText(out, "Latency (ms)", stats.getLatency());
+        writeText(out, "Service time (ms)", stats.getServiceTime());
+        if (!stats.getErrors().isEmpty()) {
+            out.println("Errors:");
+            for (Map.Entry<String, Long> entry : stats.getErrors().entrySet()) {
+                out.printf(Locale.ROOT, "  %-24s %d%n", entry.getKey(), entry.getValue());
+            }
+        }
+    }
+
+    private static void writeText(PrintStream out, String title, LatencyHistogram histogram) {
+        out.printf(Locale.ROOT, "%-18s mean %.2f", title, millis(histogram.getMean()));
+        for (double percentile : PERCENTILES) {
+            out.printf(Locale.ROOT, "  p%s %.2f", label(percentile), millis(histogram.getValueAtPercentile(percentile)));
+        }
+        out.printf(Locale.ROOT, "  max %.2f%n", millis(histogram.getMax()));
+    }
+
+    private void writeJson(PrintStream out) {
+        StringBuilder json = new StringBuilder("{");
+        field(json, "flow").append(string(options.flow.getName())).append(',');
+        field(json, "mode").append(string(options.mode.name().toLowerCase(Locale.ROOT))).append(',');
+        field(json, "targetRate").append(number(options.rate)).append(',');
+        field(json, "concurrency").append(options.mode == LoadOptions.Mode.CLOSED ? options.concurrency : 0).append(',');
+        field(json, "durationSeconds").append(number(options.durationNanos / 1e9)).append(',');
+        field(json, "completed").append(stats.getCompleted()).append(',');
+        field(json, "failed").append(stats.getFailed()).append(',');
+        field(json, "shed").append(stats.getShed()).append(',');
+        field(json, "unfinished").append(unfinished).append(',');
+        field(json, "throughput").append(number(throughput())).append(',');
+        field(json, "latencyMillis");
+        histogram(json, stats.getLatency()).append(',');
+        field(json, "serviceTimeMillis");
+        histogram(json, stats.getServiceTime()).append(',');
+        field(json, "errors").append('{');
+        boolean first = true;
+        for (Map.Entry<String, Long> entry : stats.getErrors().entrySet()) {
+            if (!first) json.append(',');
+            first = false;
+            field(json, entry.getKey()).append(entry.getValue());
+        }
+        json.append("}}");
+        out.println(json);
+    }
+
+    private static StringBuilder histogram(StringBuilder json, LatencyHistogram histogram) {
+        json.append('{');
+        field(json, "mean").append(number(millis(histogram.getMean())));
+        for (double percentile : PERCENTILES) {
+            json.append(',');
+            field(json, "p" + label(percentile)).append(number(millis(histogram.getValueAtPercentile(percentile))));
+        }
+        json.append(',');
+        field(json, "max").append(number(millis(histogram.getMax())));
+        return json.append('}');
+    }
+
+    private static StringBuilder field(StringBuilder json, String name) {
+        return json.append(string(name)).append(':');
+    }
+
+    private static String string(String value) {
+        return '"' + value.replace("\\", "\\\\").replace("\"", "\\\"") + '"';
+    }
+
+    private static String number(double value) {
+        return String.format(Locale.ROOT, "%.3f", value);
+    }
+
+    private static String label(double percentile) {
+        return percentile == Math.rint(percentile) ? String.valueOf((long) percentile) : String.valueOf(percentile);
+    }
+
+    private static double millis(double nanos) {
+        return nanos / 1e6;
+    }
+}
@@ -0,0 +1,22 @@
+package io.ecidentity.integration.loadgen;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class LoadGeneratorTest {
+
+    @Test
+    public void testFlowsAgainstFake() throws Exception {
+        for (Flow flow : Flow.values()) {
+            LoadOptions options = LoadOptions.parse(new String[]{
+                    "--fake", "--flow", flow.getName(), "--mode", "closed", "--concurrency", "4",
+                    "--warmup", "0", "--duration", "1", "--drain", "10"});
+            LoadStats stats = LoadGenerator.run(options).getStats();
+
+            assertTrue(flow.getName() + " completed no flows", stats.getCompleted() > 0);
+            assertEquals(flow.getName() + " failed " + stats.getErrors(), 0, stats.getFailed());
+        }
+    }
+}
@@ -0,0 +1,358 @@
+package io.ecidentity.integration.client;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+/**
+ * Limits how fast and how many session calls ({@code init}, {@code auth} and {@code hash}) are sent
+ * to the authority, separately for every access key.
+ * <p>
+ * A call is admitted when a token is available in the key's token bucket and fewer than the
+ * configured number of admitted calls are still in flight; it holds its in-flight slot until it
+ * completes, fails or is cancelled. Calls that cannot be admitted immediately wait in submission
+ * order for at most the configured time, and fail with a {@link RejectedExecutionException} when the
+ * wait is exceeded or waiting is disabled. A waiting call is neither signed nor sent, so the returned
+ * {@code Flux}/{@code Flowable} simply emits later. Clients built with the same instance share its limits.
+ */
+public final class AdmissionControl {
+
+    public static class Builder {
+        private double permitsPerSecond;
+        private int burst = 1;
+        private int maxInFlight = Integer.MAX_VALUE;
+        private long maxWaitNanos;
+
+        /**
+         * Allows on average {@code permitsPerSecond} calls per second with bursts of up to {@code burst}
+         * calls. Unlimited by default.
+         */
+        public Builder withRate(double permitsPerSecond, int burst) {
+            if (!(permitsPerSecond > 0)) throw new IllegalArgumentException("Rate must be positive");
+            if (burst < 1) throw new IllegalArgumentException("Burst must be at least 1");
+            this.permitsPerSecond = permitsPerSecond;
+            this.burst = burst;
+            return this;
+        }
+
+        /**
+         * Maximum number of admitted calls in flight per access key. Unlimited by default.
+         */
+        public Builder withMaxInFlight(int maxInFlight) {
+            if (maxInFlight < 1) throw new IllegalArgumentException("At least one call in flight is required");
+            this.maxInFlight = maxInFlight;
+            return this;
+        }
+
+        /**
+         * How long a call may wait to be admitted. By default calls that cannot be admitted immediately fail.
+         */
+        public Builder withMaxWait(long maxWait, TimeUnit unit) {
+            if (maxWait < 0) throw new IllegalArgumentException("Wait must not be negative");
+            this.maxWaitNanos = unit.toNanos(maxWait);
+            return this;
+        }
+
+        public AdmissionControl build() {
+            return new AdmissionControl(this);
+        }
+    }
+
+    private static final class Timer {
+        private static final ScheduledExecutorService INSTANCE = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "ecidentity-admission");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    private final double permitsPerSecond;
+    private final int burst;
+    private final int maxInFlight;
+    private final long maxWaitNanos;
+    private final ConcurrentMap<String, Limiter> limiters = new ConcurrentHashMap<>();
+
+    private AdmissionControl(Builder builder) {
+        this.permitsPerSecond = builder.permitsPerSecond;
+        this.burst = builder.burst;
+        this.maxInFlight = builder.maxInFlight;
+        this.maxWaitNanos = builder.maxWaitNanos;
+    }
+
+    /**
+     * Number of admitted calls of the access key that are still in flight.
+     */
+    public int getInFlight(String accessKeyId) {
+        Limiter limiter = limiters.get(accessKeyId);
+        return limiter == null ? 0 : limiter.inFlight();
+    }
+
+    /**
+     * Number of calls of the access key waiting to be admitted.
+     */
+    public int getWaiting(String accessKeyId) {
+        Limiter limiter = limiters.get(accessKeyId);
+        return limiter == null ? 0 : limiter.waiting();
+    }
+
+    /**
+     * Starts the call once it is admitted. Demand and cancellation on the returned handle are
+     * forwarded to the call as soon as it has started.
+     */
+    <T> ResponseCall admit(String accessKeyId, ResponseListener<T> listener, Function<ResponseListener<T>, ResponseCall> start) {
+        Limiter limiter = limiters.get(accessKeyId);
+        if (limiter == null) {
+            Limiter created = new Limiter(accessKeyId);
+            limiter = limiters.putIfAbsent(accessKeyId, created);
+            if (limiter == null) limiter = created;
+        }
+        AdmittedCall<T> call = new AdmittedCall<>(limiter, listener, start);
+        limiter.acquire(call);
+        return call;
+    }
+
+    private final class Limiter {
+        private final String accessKeyId;
+        private final ReentrantLock lock = new ReentrantLock();
+        private final ArrayDeque<AdmittedCall<?>> queue = new ArrayDeque<>();
+        private double tokens = burst;
+        private long refilledAt = System.nanoTime();
+        private int inFlight;
+        private boolean drainScheduled;
+
+        private Limiter(String accessKeyId) {
+            this.accessKeyId = accessKeyId;
+        }
+
+        void acquire(AdmittedCall<?> call) {
+            boolean admitted = false;
+            boolean rejected = false;
+            lock.lock();
+            try {
+                if (queue.isEmpty() && tryTake()) {
+                    admitted = true;
+                } else if (maxWaitNanos == 0) {
+                    rejected = true;
+                } else {
+                    queue.add(call);
+                    call.timeout = Timer.INSTANCE.schedule(() -> expire(call), maxWaitNanos, TimeUnit.NANOSECONDS);
+                    scheduleDrain();
+                }
+            } finally {
+                lock.unlock();
+            }
+            if (admitted) call.admit();
+            else if (rejected) call.reject(rejection());
+        }
+
+        void release() {
+            lock.lock();
+            try {
+                inFlight--;
+            } finally {
+                lock.unlock();
+            }
+            drain();
+        }
+
+        void withdraw(AdmittedCall<?> call) {
+            lock.lock();
+            try {
+                if (queue.remove(call)) call.timeout.cancel(false);
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        int inFlight() {
+            lock.lock();
+            try {
+                return inFlight;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        int waiting() {
+            lock.lock();
+            try {
+                return queue.size();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private void expire(AdmittedCall<?> call) {
+            boolean removed;
+            lock.lock();
+            try {
+                removed = queue.remove(call);
+            } finally {
+                lock.unlock();
+            }
+            if (removed) call.reject(rejection());
+        }
+
+        private void drain() {
+            List<AdmittedCall<?>> admitted = new ArrayList<>();
+            lock.lock();
+            try {
+                while (!queue.isEmpty() && tryTake()) {
+                    AdmittedCall<?> call = queue.poll();
+                    call.timeout.cancel(false);
+                    admitted.add(call);
+                }
+                if (!queue.isEmpty()) scheduleDrain();
+            } finally {
+                lock.unlock();
+            }
+            for (AdmittedCall<?> call : admitted) call.admit();
+        }
+
+        /**
+         * Schedules a drain for when the next token becomes available. A call blocked by the
+         * in-flight limit is drained when a slot is released instead.
+         */
+        private void scheduleDrain() {
+            if (drainScheduled || inFlight >= maxInFlight || permitsPerSecond <= 0) return;
+            long delayNanos = (long) Math.ceil((1 - tokens) / permitsPerSecond * TimeUnit.SECONDS.toNanos(1));
+            drainScheduled = true;
+            Timer.INSTANCE.schedule(() -> {
+                lock.lock();
+                try {
+                    drainScheduled = false;
+                } finally {
+                    lock.unlock();
+                }
+                drain();
+            }, Math.max(0, delayNanos), TimeUnit.NANOSECONDS);
+        }
+
+        private boolean tryTake() {
+            if (inFlight >= maxInFlight) return false;
+            if (permitsPerSecond > 0) {
+                long now = System.nanoTime();
+                tokens = Math.min(burst, tokens + (now - refilledAt) * permitsPerSecond / TimeUnit.SECONDS.toNanos(1));
+                refilledAt = now;
+                if (tokens < 1) return false;
+                tokens -= 1;
+            }
+            inFlight++;
+            return true;
+        }
+
+        private RejectedExecutionException rejection() {
+            return new RejectedExecutionException("Call limit reached for access key " + accessKeyId);
+        }
+    }
+
+    private static final class AdmittedCall<T> implements ResponseCall, ResponseListener<T> {
+        private final Limiter limiter;
+        private final ResponseListener<T> listener;
+        private final Function<ResponseListener<T>, ResponseCall> start;
+        // demand requested before the call is started, -1 once it is
+        private final AtomicLong pending = new AtomicLong();
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private ScheduledFuture<?> timeout;
+        private volatile ResponseCall call;
+        private volatile boolean done;
+
+        private AdmittedCall(Limiter limiter, ResponseListener<T> listener, Function<ResponseListener<T>, ResponseCall> start) {
+            this.limiter = limiter;
+            this.listener = listener;
+            this.start = start;
+        }
+
+        void admit() {
+            if (done) {
+                release();
+                return;
+            }
+            ResponseCall started;
+            try {
+                started = start.apply(this);
+            } catch (RuntimeException e) {
+                onError(e);
+                return;
+            }
+            call = started;
+            if (done) {
+                started.cancel();
+                release();
+                return;
+            }
+            long requested = pending.getAndSet(-1);
+            if (requested > 0) started.request(requested);
+        }
+
+        void reject(Throwable error) {
+            released.set(true);
+            if (done) return;
+            done = true;
+            listener.onError(error);
+        }
+
+        @Override
+        public void request(long count) {
+            for (; ; ) {
+                long current = pending.get();
+                if (current < 0) {
+                    call.request(count);
+                    return;
+                }
+                long updated = current + count < 0 ? Long.MAX_VALUE : current + count;
+                if (pending.compareAndSet(current, updated)) return;
+            }
+        }
+
+        @Override
+        public void cancel() {
+            if (done) return;
+            done = true;
+            ResponseCall started = call;
+            if (started != null) {
+                started.cancel();
+                release();
+            } else {
+                limiter.withdraw(this);
+            }
+        }
+
+        @Override
+        public void onNext(T payload) {
+            if (!done) listener.onNext(payload);
+        }
+
+        @Override
+        public void onError(Throwable error) {
+            if (done) return;
+            done = true;
+            release();
+            listener.onError(error);
+        }
+
+        @Override
+        public void onCompleted() {
+            if (done) return;
+            done = true;
+            release();
+            listener.onCompleted();
+        }
+
+        private void release() {
+            if (released.compareAndSet(false, true)) limiter.release();
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package io.ecidentity.integration.client;
+
+import com.google.protobuf.ByteString;
+import io.ecidentity.protocol.authority.*;
+import io.ecidentity.protocol.types.KeyEntryTypeProtocol;
+
+/**
+ * Transport-level implementation of the auth calls shared by all auth client flavours: builds and
+ * signs the request, sends it and delivers the verified payloads to a listener.
+ */
+final class AuthClientCore extends ClientCore {
+
+    AuthClientCore(ClientBase client, String accessKeyId, AdmissionControl admission) {
+        super(client, accessKeyId, admission);
+    }
+
+    ResponseCall init(String email, KeyEntryTypeProtocol type, byte[] hashToSign, Boolean report, Boolean subject, Boolean sanctions, ResponseListener<InitAuthResponsePayload> listener) {
+        return admit(listener, admitted -> startInit(email, type, hashToSign, report, subject, sanctions, admitted));
+    }
+
+    private ResponseCall startInit(String email, KeyEntryTypeProtocol type, byte[] hashToSign, Boolean report, Boolean subject, Boolean sanctions, ResponseListener<InitAuthResponsePayload> listener) {
+        InitAuthRequestPayload payload = initPayload(email, type, hashToSign, report, subject, sanctions);
+        ClientBase.SignedPayload signed = sign(IntegrationAuthServiceGrpc.getInitMethod(), payload, listener);
+        if (signed == null) return ResponseCall.FAILED;
+        return client.startCall(IntegrationAuthServiceGrpc.getInitMethod(), InitAuthRequest.newBuilder()
+                .setAccessKeyId(accessKeyId)
+                .setSignature(signed.getSignature())
+                .setPayload(payload)
+                .setUnknownFields(signed.getEncodedPayloadField())
+                .build(), false, listener);
+    }
+
+    ResponseCall check(String sessionId, ResponseListener<AuthStatusResponsePayload> listener) {
+        AuthStatusRequestPayload payload = AuthStatusRequestPayload.newBuilder()
+                .setSessionId(sessionId)
+                .build();
+        ClientBase.SignedPayload signed = sign(IntegrationAuthServiceGrpc.getCheckMethod(), payload, listener);
+        if (signed == null) return ResponseCall.FAILED;
+        return client.startCall(IntegrationAuthServiceGrpc.getCheckMethod(), AuthStatusRequest.newBuilder()
+                .setAccessKeyId(accessKeyId)
+                .setSignature(signed.getSignature())
+                .setPayload(payload)
+                .setUnknownFields(signed.getEncodedPayloadField())
+                .build(), true, listener);
+    }
+
+    ResponseCall auth(String email, KeyEntryTypeProtocol type, byte[] hashToSign, Boolean report, Boolean subject, Boolean sanctions, ResponseListener<AuthStatusResponsePayload> listener) {
+        return admit(listener, admitted -> startAuth(email, type, hashToSign, report, subject, sanctions, admitted));
+    }
+
+    private ResponseCall startAuth(String email, KeyEntryTypeProtocol type, byte[] hashToSign, Boolean report, Boolean subject, Boolean sanctions, ResponseListener<AuthStatusResponsePayload> listener) {
+        InitAuthRequestPayload payload = initPayload(email, type, hashToSign, report, subject, sanctions);
+        ClientBase.SignedPayload signed = sign(IntegrationAuthServiceGrpc.getAuthMethod(), payload, listener);
+        if (signed == null) return ResponseCall.FAILED;
+        return client.startCall(IntegrationAuthServiceGrpc.getAuthMethod(), InitAuthRequest.newBuilder()
+                .setAccessKeyId(accessKeyId)
+                .setSignature(signed.getSignature())
+                .setPayload(payload)
+                .setUnknownFields(signed.getEncodedPayloadField())
+                .build(), true, listener);
+    }
+
+    ResponseCall cancel(String sessionId, ResponseListener<CancelAuthResponsePayload> listener) {
+        CancelAuthRequestPayload payload = CancelAuthRequestPayload.newBuilder()
+                .setSessionId(sessionId)
+                .build();
+        ClientBase.SignedPayload signed = sign(IntegrationAuthServiceGrpc.getCancelMethod(), payload, listener);
+        if (signed == null) return ResponseCall.FAILED;
+        return client.startCall(IntegrationAuthServiceGrpc.getCancelMethod(), CancelAuthRequest.newBuilder()
+                .setAccessKeyId(accessKeyId)
+                .setSignature(signed.getSignature())
+                .setPayload(payload)
+                .setUnknownFields(signed.getEncodedPayloadField())
+                .build(), false, listener);
+    }
+
+    private static InitAuthRequestPayload initPayload(String email, KeyEntryTypeProtocol type, byte[] hashToSign, Boolean report, Boolean subject, Boolean sanctions) {
+        return InitAuthRequestPayload.newBuilder()
+                .setEmail(email)
+                .setType(type)
+                .setHashToSign(ByteString.copyFrom(hashToSign))
+                .setWithReport(report)
+                .setExtractSubject(subject)
+                .setWithSanctions(sanctions)
+                .build();
+    }
+}
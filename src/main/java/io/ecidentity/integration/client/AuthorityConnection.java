@@ -0,0 +1,228 @@
+package io.ecidentity.integration.client;
+
+import io.ecidentity.integration.metrics.ClientMetrics;
+import io.ecidentity.integration.utils.Config;
+import io.grpc.CallOptions;
+import io.grpc.ClientCall;
+import io.grpc.ManagedChannel;
+import io.grpc.ManagedChannelBuilder;
+import io.grpc.MethodDescriptor;
+import io.grpc.netty.shaded.io.grpc.netty.NettyChannelBuilder;
+import io.grpc.netty.shaded.io.netty.channel.EventLoopGroup;
+import io.grpc.netty.shaded.io.netty.channel.nio.NioEventLoopGroup;
+import io.grpc.netty.shaded.io.netty.channel.socket.nio.NioSocketChannel;
+import io.grpc.netty.shaded.io.netty.util.concurrent.DefaultThreadFactory;
+
+import java.security.InvalidKeyException;
+import java.security.NoSuchAlgorithmException;
+import java.security.NoSuchProviderException;
+import java.security.SignatureException;
+import java.security.cert.CertificateException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Connection to the authority that can be shared by any number of auth and sign clients.
+ * <p>
+ * All clients built with the same connection share its transport threads and a single trust
+ * certificate. Calls are spread round-robin over a configurable number of HTTP/2 connections, so
+ * the number of concurrently open streams is not capped by the server's per-connection limit.
+ * A shared connection is not closed by {@link ClientBase#shutdown()}; call {@link #shutdown()}
+ * once all clients using it are done.
+ */
+public final class AuthorityConnection {
+
+    public static class Builder {
+        private final String host;
+        private final int port;
+        private final ManagedChannelBuilder<?> channelBuilder;
+        private int channels = 1;
+        private int eventLoopThreads;
+        private CallPolicy callPolicy = CallPolicy.DEFAULT;
+        private ClientMetrics metrics = ClientMetrics.NOOP;
+
+        public Builder(Config config) {
+            this(config.host, config.port);
+        }
+
+        public Builder(String host, int port) {
+            this.host = host;
+            this.port = port;
+            this.channelBuilder = null;
+        }
+
+        /**
+         * Connects through a channel configured by the caller, e.g. an in-process channel to a fake
+         * authority. The connection uses a single channel and ignores {@link #withChannels} and
+         * {@link #withEventLoopThreads}.
+         */
+        public Builder(ManagedChannelBuilder<?> channelBuilder) {
+            this.host = null;
+            this.port = 0;
+            this.channelBuilder = channelBuilder;
+        }
+
+        /**
+         * Number of HTTP/2 connections calls are spread across, defaults to 1.
+         */
+        public Builder withChannels(int channels) {
+            if (channels < 1) throw new IllegalArgumentException("At least one channel is required");
+            this.channels = channels;
+            return this;
+        }
+
+        /**
+         * Number of transport threads owned by this connection. By default the connection uses the
+         * transport threads gRPC shares between all of its channels.
+         */
+        public Builder withEventLoopThreads(int eventLoopThreads) {
+            if (eventLoopThreads < 1) throw new IllegalArgumentException("At least one event loop thread is required");
+            this.eventLoopThreads = eventLoopThreads;
+            return this;
+        }
+
+        /**
+         * Deadlines, retries and hedging of unary calls, defaults to {@link CallPolicy#DEFAULT}.
+         */
+        public Builder withCallPolicy(CallPolicy callPolicy) {
+            this.callPolicy = callPolicy;
+            return this;
+        }
+
+        /**
+         * Metrics of this connection and of every client using it, disabled by default.
+         */
+        public Builder withMetrics(ClientMetrics metrics) {
+            this.metrics = metrics == null ? ClientMetrics.NOOP : metrics;
+            return this;
+        }
+
+        public AuthorityConnection build() throws CertificateException, NoSuchAlgorithmException, InvalidKeyException, NoSuchProviderException, SignatureException {
+            return new AuthorityConnection(this);
+        }
+    }
+
+    private final EventLoopGroup eventLoopGroup;
+    private final ManagedChannel channel;
+    private final TrustCertificateManager trust;
+    private final ClientMetrics metrics;
+
+    private AuthorityConnection(Builder builder) throws CertificateException, NoSuchAlgorithmException, InvalidKeyException, NoSuchProviderException, SignatureException {
+        this.eventLoopGroup = builder.eventLoopThreads > 0 && builder.channelBuilder == null
+                ? new NioEventLoopGroup(builder.eventLoopThreads, new DefaultThreadFactory("ecidentity-authority", true))
+                : null;
+
+        ManagedChannel[] channels = new ManagedChannel[builder.channelBuilder != null ? 1 : builder.channels];
+        PayloadCapturingInterceptor interceptor = new PayloadCapturingInterceptor();
+        DeadlineInterceptor deadlines = new DeadlineInterceptor(builder.callPolicy.deadlines());
+        for (int i = 0; i < channels.length; i++) {
+            ManagedChannelBuilder<?> channelBuilder = builder.channelBuilder;
+            if (channelBuilder == null) {
+                NettyChannelBuilder nettyBuilder = NettyChannelBuilder.forAddress(builder.host, builder.port)
+                        .useTransportSecurity();
+                if (eventLoopGroup != null) {
+                    nettyBuilder.eventLoopGroup(eventLoopGroup).channelType(NioSocketChannel.class);
+                }
+                channelBuilder = nettyBuilder;
+            }
+            channelBuilder.intercept(interceptor, deadlines);
+            if (builder.callPolicy.serviceConfig() != null) {
+                channelBuilder.defaultServiceConfig(builder.callPolicy.serviceConfig()).enableRetry();
+            } else {
+                channelBuilder.disableRetry();
+            }
+            channels[i] = channelBuilder.build();
+        }
+        this.channel = channels.length == 1 ? channels[0] : new RoundRobinChannel(channels);
+
+        this.metrics = builder.metrics;
+        this.trust = new TrustCertificateManager(channel, metrics);
+        try {
+            TrustCertificateManager.await(trust.refresh());
+        } catch (CertificateException | NoSuchProviderException | NoSuchAlgorithmException | SignatureException | InvalidKeyException | RuntimeException e) {
+            shutdown();
+            throw e;
+        }
+    }
+
+    static AuthorityConnection open(Config config) throws CertificateException, NoSuchAlgorithmException, InvalidKeyException, NoSuchProviderException, SignatureException {
+        return new Builder(config).build();
+    }
+
+    static AuthorityConnection open(Config config, ClientMetrics metrics) throws CertificateException, NoSuchAlgorithmException, InvalidKeyException, NoSuchProviderException, SignatureException {
+        return new Builder(config).withMetrics(metrics).build();
+    }
+
+    ManagedChannel channel() {
+        return channel;
+    }
+
+    TrustCertificateManager trust() {
+        return trust;
+    }
+
+    ClientMetrics metrics() {
+        return metrics;
+    }
+
+    public void shutdown() {
+        trust.close();
+        channel.shutdown();
+        if (eventLoopGroup != null) eventLoopGroup.shutdownGracefully(0, 5, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Spreads new calls over several channels. A streaming call stays on the channel it was started on.
+     */
+    private static final class RoundRobinChannel extends ManagedChannel {
+        private final ManagedChannel[] channels;
+        private final AtomicInteger next = new AtomicInteger();
+
+        private RoundRobinChannel(ManagedChannel[] channels) {
+            this.channels = channels;
+        }
+
+        @Override
+        public <ReqT, RespT> ClientCall<ReqT, RespT> newCall(MethodDescriptor<ReqT, RespT> method, CallOptions callOptions) {
+            return channels[Math.floorMod(next.getAndIncrement(), channels.length)].newCall(method, callOptions);
+        }
+
+        @Override
+        public String authority() {
+            return channels[0].authority();
+        }
+
+        @Override
+        public ManagedChannel shutdown() {
+            for (ManagedChannel channel : channels) channel.shutdown();
+            return this;
+        }
+
+        @Override
+        public boolean isShutdown() {
+            for (ManagedChannel channel : channels) if (!channel.isShutdown()) return false;
+            return true;
+        }
+
+        @Override
+        public boolean isTerminated() {
+            for (ManagedChannel channel : channels) if (!channel.isTerminated()) return false;
+            return true;
+        }
+
+        @Override
+        public ManagedChannel shutdownNow() {
+            for (ManagedChannel channel : channels) channel.shutdownNow();
+            return this;
+        }
+
+        @Override
+        public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+            long deadline = System.nanoTime() + unit.toNanos(timeout);
+            for (ManagedChannel channel : channels) {
+                if (!channel.awaitTermination(deadline - System.nanoTime(), TimeUnit.NANOSECONDS)) return false;
+            }
+            return true;
+        }
+    }
+}
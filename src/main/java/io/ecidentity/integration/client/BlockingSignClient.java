@@ -0,0 +1,126 @@
+package io.ecidentity.integration.client;
+
+import io.ecidentity.integration.metrics.ClientMetrics;
+import io.ecidentity.integration.utils.Config;
+import io.ecidentity.protocol.authority.*;
+import io.ecidentity.protocol.types.KeyEntryTypeProtocol;
+
+import java.security.*;
+import java.security.cert.CertificateException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Sign client with plain blocking calls, for callers that use neither Reactor nor RxJava.
+ * <p>
+ * Calls only park the calling thread and never hold a monitor while waiting, so any number of
+ * sessions can be run concurrently on virtual threads. Failures are thrown as unchecked exceptions.
+ */
+public class BlockingSignClient extends ClientBase {
+
+    public static class Builder {
+        private final Config config;
+        private final AuthorityConnection connection;
+        private String accessKeyId;
+        private KeyStore keyStore;
+        private String keyAlias = DEFAULT_KEY_ALIAS;
+        private char[] password;
+        private Executor verificationExecutor = ForkJoinPool.commonPool();
+        private AdmissionControl admissionControl;
+        private boolean precomputedSigning;
+        private ClientMetrics metrics;
+
+        public Builder(Config config) {
+            this.config = config;
+            this.connection = null;
+        }
+
+        public Builder(AuthorityConnection connection) {
+            this.config = null;
+            this.connection = connection;
+        }
+
+        public BlockingSignClient.Builder withAccessKey(String accessKey) {
+            this.accessKeyId = accessKey;
+            return this;
+        }
+
+        public BlockingSignClient.Builder withKeyStore(KeyStore keyStore) {
+            this.keyStore = keyStore;
+            return this;
+        }
+
+        public BlockingSignClient.Builder withKeyAlias(String keyAlias) {
+            this.keyAlias = keyAlias;
+            return this;
+        }
+
+        public BlockingSignClient.Builder withPassword(char[] password) {
+            this.password = password;
+            return this;
+        }
+
+        public BlockingSignClient.Builder withVerificationExecutor(Executor executor) {
+            this.verificationExecutor = executor;
+            return this;
+        }
+
+        /**
+         * Signs requests with a {@link io.ecidentity.integration.utils.PrecomputedSigner} instead of
+         * the JCA, which lowers the latency of every call. Requires an EC key whose private scalar
+         * can be read from the key store.
+         */
+        public BlockingSignClient.Builder withPrecomputedSigning(boolean precomputedSigning) {
+            this.precomputedSigning = precomputedSigning;
+            return this;
+        }
+
+        /**
+         * Limits the rate and the number of concurrent session calls per access key.
+         */
+        public BlockingSignClient.Builder withAdmissionControl(AdmissionControl admissionControl) {
+            this.admissionControl = admissionControl;
+            return this;
+        }
+
+        /**
+         * Metrics of the connection opened for this client. A client built on a shared
+         * {@link AuthorityConnection} reports to the metrics of that connection instead.
+         */
+        public BlockingSignClient.Builder withMetrics(ClientMetrics metrics) {
+            this.metrics = metrics;
+            return this;
+        }
+
+        public BlockingSignClient build() throws CertificateException, NoSuchAlgorithmException, InvalidKeyException, NoSuchProviderException, SignatureException {
+            AuthorityConnection authority = connection != null ? connection : AuthorityConnection.open(config, metrics);
+            return new BlockingSignClient(accessKeyId, keyStore, keyAlias, password, authority, connection == null, verificationExecutor, admissionControl, precomputedSigning);
+        }
+    }
+
+    private final SignClientCore core;
+
+    private BlockingSignClient(String accessKeyId, KeyStore keyStore, String keyAlias, char[] password, AuthorityConnection connection, boolean ownsConnection, Executor verificationExecutor, AdmissionControl admissionControl, boolean precomputedSigning) {
+        super(connection, ownsConnection, keyStore, keyAlias, password, verificationExecutor, precomputedSigning);
+
+        this.core = new SignClientCore(this, accessKeyId, admissionControl);
+    }
+
+    /**
+     * Starts a sign session and waits until it is established.
+     */
+    public InitSignResponsePayload init(String email, KeyEntryTypeProtocol type) {
+        return ResponseIterator.<InitSignResponsePayload>start(listener -> core.init(email, type, listener)).last();
+    }
+
+    /**
+     * Submits a hash within the session and waits for its signature.
+     */
+    public SignHashResponsePayload hash(String sessionId, byte[] hash) {
+        return ResponseIterator.<SignHashResponsePayload>start(listener -> core.hash(sessionId, hash, listener)).last();
+    }
+
+    public CancelSignResponsePayload cancel(String sessionId) {
+        return ResponseIterator.<CancelSignResponsePayload>start(listener -> core.cancel(sessionId, listener)).last();
+    }
+}
@@ -0,0 +1,200 @@
+package io.ecidentity.integration.client;
+
+import io.ecidentity.protocol.authority.IntegrationAuthServiceGrpc;
+import io.ecidentity.protocol.authority.IntegrationSignServiceGrpc;
+import io.ecidentity.protocol.authority.IntegrationTrustServiceGrpc;
+import io.grpc.MethodDescriptor;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Deadlines, retries and hedging of the unary calls made through an {@link AuthorityConnection}.
+ * <p>
+ * Each unary call gets a deadline, which an earlier deadline set on the call itself still overrides.
+ * An idempotent call ({@code cancel} and the trust {@code cert} call) failing with
+ * {@code UNAVAILABLE} or {@code ABORTED} is retried with jittered exponential backoff as long as the
+ * retry budget allows. The budget is shared by all calls of the connection and is drained by
+ * failures, so retries stop adding load during an outage. Calls are never retried once the
+ * authority has started responding. Idempotent calls may also be hedged, i.e. re-sent after a
+ * delay while the first attempt is still pending.
+ * <p>
+ * {@code init} creates a session and prompts the user, so it is neither retried nor hedged.
+ * {@code UNAVAILABLE} does not prove that the authority never saw the call: when the connection
+ * resets before the response arrives, the session may already exist, and a retry would create a
+ * second one and prompt the user again. The protocol has no idempotency key the authority could
+ * de-duplicate on, so a failed {@code init} is reported to the caller, who can check with the user
+ * before starting over. Streaming calls wait for the user and are neither given a deadline nor
+ * retried.
+ */
+public final class CallPolicy {
+
+    public enum UnaryCall {
+        AUTH_INIT(IntegrationAuthServiceGrpc.getInitMethod(), false),
+        AUTH_CANCEL(IntegrationAuthServiceGrpc.getCancelMethod(), true),
+        SIGN_CANCEL(IntegrationSignServiceGrpc.getCancelMethod(), true),
+        TRUST_CERT(IntegrationTrustServiceGrpc.getCertMethod(), true);
+
+        private final String fullMethodName;
+        private final boolean idempotent;
+
+        UnaryCall(MethodDescriptor<?, ?> method, boolean idempotent) {
+            this.fullMethodName = method.getFullMethodName();
+            this.idempotent = idempotent;
+        }
+    }
+
+    public static final CallPolicy DEFAULT = new Builder().build();
+
+    public static class Builder {
+        private final Map<UnaryCall, Long> deadlineNanos = new EnumMap<>(UnaryCall.class);
+        private int maxAttempts = 3;
+        private long initialBackoffNanos = TimeUnit.MILLISECONDS.toNanos(100);
+        private long maxBackoffNanos = TimeUnit.SECONDS.toNanos(2);
+        private double backoffMultiplier = 2;
+        private int retryBudget = 10;
+        private double budgetRefill = 0.1;
+        private long hedgingDelayNanos;
+
+        public Builder() {
+            deadlineNanos.put(UnaryCall.AUTH_INIT, TimeUnit.SECONDS.toNanos(15));
+            deadlineNanos.put(UnaryCall.AUTH_CANCEL, TimeUnit.SECONDS.toNanos(10));
+            deadlineNanos.put(UnaryCall.SIGN_CANCEL, TimeUnit.SECONDS.toNanos(10));
+            deadlineNanos.put(UnaryCall.TRUST_CERT, TimeUnit.SECONDS.toNanos(30));
+        }
+
+        /**
+         * Deadline of the call, covering all of its attempts. Zero removes the deadline.
+         */
+        public Builder withDeadline(UnaryCall call, long deadline, TimeUnit unit) {
+            if (deadline < 0) throw new IllegalArgumentException("Deadline must not be negative");
+            if (deadline == 0) deadlineNanos.remove(call);
+            else deadlineNanos.put(call, unit.toNanos(deadline));
+            return this;
+        }
+
+        /**
+         * Maximum number of attempts of a call including the first one, 1 disables retries and
+         * hedging. gRPC caps this at 5.
+         */
+        public Builder withMaxAttempts(int maxAttempts) {
+            if (maxAttempts < 1) throw new IllegalArgumentException("At least one attempt is required");
+            this.maxAttempts = maxAttempts;
+            return this;
+        }
+
+        /**
+         * Retry backoff; the actual delay is drawn at random up to the current backoff.
+         */
+        public Builder withBackoff(long initialBackoff, long maxBackoff, TimeUnit unit, double multiplier) {
+            if (initialBackoff <= 0 || maxBackoff < initialBackoff || !(multiplier > 0))
+                throw new IllegalArgumentException("Invalid backoff");
+            this.initialBackoffNanos = unit.toNanos(initialBackoff);
+            this.maxBackoffNanos = unit.toNanos(maxBackoff);
+            this.backoffMultiplier = multiplier;
+            return this;
+        }
+
+        /**
+         * Retry budget: every failure takes one token, every success returns {@code refill}, and
+         * retries are suspended while fewer than half of {@code tokens} remain.
+         */
+        public Builder withRetryBudget(int tokens, double refill) {
+            if (tokens < 1 || !(refill > 0)) throw new IllegalArgumentException("Invalid retry budget");
+            this.retryBudget = tokens;
+            this.budgetRefill = refill;
+            return this;
+        }
+
+        /**
+         * Sends another attempt of an idempotent call whenever the previous one has been pending for
+         * this long. Disabled by default.
+         */
+        public Builder withHedgingDelay(long delay, TimeUnit unit) {
+            if (delay < 0) throw new IllegalArgumentException("Delay must not be negative");
+            this.hedgingDelayNanos = unit.toNanos(delay);
+            return this;
+        }
+
+        public CallPolicy build() {
+            return new CallPolicy(this);
+        }
+    }
+
+    private final Map<String, Long> deadlines;
+    private final Map<String, ?> serviceConfig;
+
+    private CallPolicy(Builder builder) {
+        Map<String, Long> deadlines = new HashMap<>();
+        for (Map.Entry<UnaryCall, Long> entry : builder.deadlineNanos.entrySet()) {
+            deadlines.put(entry.getKey().fullMethodName, entry.getValue());
+        }
+        this.deadlines = Collections.unmodifiableMap(deadlines);
+        this.serviceConfig = builder.maxAttempts > 1 ? serviceConfig(builder) : null;
+    }
+
+    Map<String, Long> deadlines() {
+        return deadlines;
+    }
+
+    /**
+     * gRPC service config carrying the retry and hedging policies, {@code null} if retries are disabled.
+     */
+    Map<String, ?> serviceConfig() {
+        return serviceConfig;
+    }
+
+    private static Map<String, ?> serviceConfig(Builder builder) {
+        List<Object> methodConfig = new ArrayList<>();
+        for (UnaryCall call : UnaryCall.values()) {
+            // a call without method config is neither retried nor hedged
+            if (!call.idempotent) continue;
+            Map<String, Object> config = new LinkedHashMap<>();
+            config.put("name", Collections.singletonList(name(call.fullMethodName)));
+            if (builder.hedgingDelayNanos > 0) {
+                Map<String, Object> hedging = new LinkedHashMap<>();
+                hedging.put("maxAttempts", (double) builder.maxAttempts);
+                hedging.put("hedgingDelay", duration(builder.hedgingDelayNanos));
+                hedging.put("nonFatalStatusCodes", Arrays.asList("UNAVAILABLE", "ABORTED"));
+                config.put("hedgingPolicy", hedging);
+            } else {
+                Map<String, Object> retry = new LinkedHashMap<>();
+                retry.put("maxAttempts", (double) builder.maxAttempts);
+                retry.put("initialBackoff", duration(builder.initialBackoffNanos));
+                retry.put("maxBackoff", duration(builder.maxBackoffNanos));
+                retry.put("backoffMultiplier", builder.backoffMultiplier);
+                retry.put("retryableStatusCodes", Arrays.asList("UNAVAILABLE", "ABORTED"));
+                config.put("retryPolicy", retry);
+            }
+            methodConfig.add(config);
+        }
+        Map<String, Object> throttling = new LinkedHashMap<>();
+        throttling.put("maxTokens", (double) builder.retryBudget);
+        throttling.put("tokenRatio", builder.budgetRefill);
+
+        Map<String, Object> serviceConfig = new LinkedHashMap<>();
+        serviceConfig.put("methodConfig", methodConfig);
+        serviceConfig.put("retryThrottling", throttling);
+        return serviceConfig;
+    }
+
+    private static Map<String, ?> name(String fullMethodName) {
+        String service = MethodDescriptor.extractFullServiceName(fullMethodName);
+        Map<String, Object> name = new LinkedHashMap<>();
+        name.put("service", service);
+        name.put("method", fullMethodName.substring(service.length() + 1));
+        return name;
+    }
+
+    private static String duration(long nanos) {
+        return BigDecimal.valueOf(nanos, 9).stripTrailingZeros().toPlainString() + "s";
+    }
+}
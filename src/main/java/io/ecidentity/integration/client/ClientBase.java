@@ -2,100 +2,325 @@ package io.ecidentity.integration.client;
 
 import com.google.protobuf.AbstractMessage;
 import com.google.protobuf.ByteString;
+import com.google.protobuf.CodedOutputStream;
+import com.google.protobuf.UnknownFieldSet;
+import com.google.protobuf.UnsafeByteOperations;
+import io.ecidentity.integration.metrics.ClientMetrics;
 import io.ecidentity.integration.utils.Config;
-import io.ecidentity.protocol.authority.CertificateRequest;
-import io.ecidentity.protocol.authority.CertificateResponse;
-import io.ecidentity.protocol.authority.IntegrationTrustServiceGrpc;
+import io.ecidentity.integration.utils.MessageUtils;
+import io.ecidentity.integration.utils.PrecomputedSigner;
 import io.ecidentity.protocol.types.ResultCodeExtProtocol;
+import io.grpc.CallOptions;
+import io.grpc.ClientCall;
 import io.grpc.ManagedChannel;
-import io.grpc.netty.shaded.io.grpc.netty.NettyChannelBuilder;
+import io.grpc.Metadata;
+import io.grpc.MethodDescriptor;
 
+import javax.security.auth.DestroyFailedException;
+import java.io.IOException;
 import java.security.*;
 import java.security.cert.CertificateException;
-import java.security.cert.X509Certificate;
-import java.util.Date;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.locks.ReentrantLock;
 
 import static io.ecidentity.integration.utils.CryptoUtils.*;
 import static io.ecidentity.integration.utils.MessageUtils.*;
 
 public class ClientBase {
 
-    private final IntegrationTrustServiceGrpc.IntegrationTrustServiceBlockingStub integrationTrust;
-    private final KeyStore keyStore;
-    private final char[] password;
+    public static final String DEFAULT_KEY_ALIAS = "client";
 
-    private X509Certificate certificate;
+    private final AuthorityConnection connection;
+    private final boolean ownsConnection;
+    private final TrustCertificateManager trust;
+    private final KeyStore keyStore;
+    private final String keyAlias;
+    private volatile char[] password;
+    private volatile PrivateKey privateKey;
+    private final boolean precomputedSigning;
+    private volatile KeySigner signer;
+    private final List<PrivateKey> supersededKeys = new ArrayList<>();
+    private final ReentrantLock keyLock = new ReentrantLock();
+    private final CallOptions callOptions;
+    private final ClientMetrics metrics;
 
     protected final ManagedChannel authorityChannel;
 
     public ClientBase(Config config, KeyStore keyStore, char[] password) throws CertificateException, NoSuchProviderException, NoSuchAlgorithmException, SignatureException, InvalidKeyException {
+        this(config, keyStore, DEFAULT_KEY_ALIAS, password);
+    }
+
+    public ClientBase(Config config, KeyStore keyStore, String keyAlias, char[] password) throws CertificateException, NoSuchProviderException, NoSuchAlgorithmException, SignatureException, InvalidKeyException {
+        this(AuthorityConnection.open(config), true, keyStore, keyAlias, password, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * @param verificationExecutor executor on which responses are verified and delivered
+     */
+    public ClientBase(AuthorityConnection connection, KeyStore keyStore, String keyAlias, char[] password, Executor verificationExecutor) {
+        this(connection, false, keyStore, keyAlias, password, verificationExecutor);
+    }
 
+    /**
+     * @param verificationExecutor executor on which responses are verified and delivered
+     */
+    protected ClientBase(AuthorityConnection connection, boolean ownsConnection, KeyStore keyStore, String keyAlias, char[] password, Executor verificationExecutor) {
+        this(connection, ownsConnection, keyStore, keyAlias, password, verificationExecutor, false);
+    }
+
+    /**
+     * @param verificationExecutor executor on which responses are verified and delivered
+     * @param precomputedSigning   whether requests are signed with a {@link PrecomputedSigner}
+     */
+    protected ClientBase(AuthorityConnection connection, boolean ownsConnection, KeyStore keyStore, String keyAlias, char[] password, Executor verificationExecutor, boolean precomputedSigning) {
+
+        this.connection = connection;
+        this.ownsConnection = ownsConnection;
         this.keyStore = keyStore;
-        this.password = password;
+        this.keyAlias = keyAlias == null ? DEFAULT_KEY_ALIAS : keyAlias;
+        this.password = password == null ? null : password.clone();
+        this.precomputedSigning = precomputedSigning;
 
-        authorityChannel = NettyChannelBuilder.forAddress(config.host, config.port)
-                .useTransportSecurity()
-                .build();
+        authorityChannel = connection.channel();
+        trust = connection.trust();
+        metrics = connection.metrics();
+        callOptions = CallOptions.DEFAULT.withExecutor(verificationExecutor);
+    }
 
-        integrationTrust = IntegrationTrustServiceGrpc.newBlockingStub(authorityChannel);
+    /**
+     * Sends a signed request and delivers the verified responses to the listener. Responses are
+     * only received as they are requested through the returned handle.
+     */
+    <ReqT, RespT extends AbstractMessage, T> ResponseCall startCall(MethodDescriptor<ReqT, RespT> method, ReqT request, boolean streaming, ResponseListener<T> listener) {
+        ClientCall<ReqT, RespT> call = authorityChannel.newCall(method, callOptions);
+        VerifiedCall<RespT, T> verified = new VerifiedCall<>(this, call, listener, streaming, metrics, method.getFullMethodName());
+        try {
+            call.start(verified, new Metadata());
+            call.sendMessage(request);
+            call.halfClose();
+        } catch (RuntimeException e) {
+            call.cancel("Failed to start call", e);
+            throw e;
+        }
+        return verified;
+    }
 
-        retrieveCertificate();
+    ClientMetrics metrics() {
+        return metrics;
     }
 
     protected byte[] signMessage(AbstractMessage message) throws NoSuchAlgorithmException, UnrecoverableKeyException, SignatureException, KeyStoreException, InvalidKeyException {
         return signHash(sha256(message.toByteArray()));
     }
 
+    /**
+     * Encodes the payload once into an exact-size buffer and signs those bytes. The envelope carries
+     * both the payload message, which interceptors and in-process servers read as a typed field, and
+     * the signed bytes in {@link SignedPayload#getEncodedPayloadField()}, which the request
+     * marshaller writes to the wire as the payload field instead of encoding the message again.
+     */
+    protected SignedPayload signPayload(AbstractMessage payload) throws IOException, NoSuchAlgorithmException, UnrecoverableKeyException, SignatureException, KeyStoreException, InvalidKeyException {
+        byte[] encoded = new byte[payload.getSerializedSize()];
+        CodedOutputStream output = CodedOutputStream.newInstance(encoded);
+        payload.writeTo(output);
+        output.checkNoSpaceLeft();
+        return new SignedPayload(UnsafeByteOperations.unsafeWrap(encoded), ByteString.copyFrom(signHash(sha256(encoded))));
+    }
+
     protected AbstractMessage handlePayload(AbstractMessage response) throws Exception {
-        if (new Date().after(certificate.getNotAfter())) {
-            retrieveCertificate();
-        }
         AbstractMessage payload = getPayload(response);
-        verifyMessage(getSignature(response), payload);
+        verifyMessage(getSignature(response), payloadDigest(response, payload));
         return response;
     }
 
     protected AbstractMessage handleResponse(AbstractMessage response) {
         try {
-            if (new Date().after(certificate.getNotAfter())) {
-                retrieveCertificate();
-            }
             AbstractMessage payload = getPayload(response);
+            if (payload == null) throw new Exception("Missing payload");
             ResultCodeExtProtocol resultCode = getResultCode(payload);
-            verifyMessage(getSignature(response), payload);
+            verifyMessage(getSignature(response), payloadDigest(response, payload));
             switch (resultCode) {
                 case OK:
                 case PENDING:
                     return payload;
                 default:
-                    throw new RuntimeException("Result: " + resultCode.name());
+                    throw new ResultCodeException(resultCode);
             }
         } catch (Exception e) {
             throw new RuntimeException(e);
         }
     }
 
-    private void verifyMessage(ByteString signature, AbstractMessage message) throws Exception {
-        if (new Date().after(certificate.getNotAfter())) retrieveCertificate();
-        if (!verify(sha256(message.toByteArray()), certificate.getPublicKey(), signature.toByteArray()))
+    private void verifyMessage(ByteString signature, byte[] payloadHash) throws Exception {
+        if (!trust.get().getVerifier().verify(payloadHash, signature.toByteArray()))
             throw new Exception("Invalid signature");
     }
 
+    /**
+     * Returns the hash of the payload bytes as they were received, falling back to re-encoding the
+     * parsed payload when the envelope did not pass through the capturing marshaller.
+     */
+    static byte[] payloadDigest(AbstractMessage response, AbstractMessage payload) {
+        byte[] digest = getPayloadDigest(response);
+        return digest != null ? digest : sha256(payload.toByteArray());
+    }
+
     private byte[] signHash(byte[] hash) throws UnrecoverableKeyException, NoSuchAlgorithmException, KeyStoreException, SignatureException, InvalidKeyException {
         if (hash.length != 32) throw new IllegalArgumentException("Invalid hash size, must be 32 bytes");
-        return sign(hash, (PrivateKey) keyStore.getKey("client", password));
+        return getSigner().sign(hash);
+    }
+
+    /**
+     * Returns the signer of the current private key, creating it when the key was loaded or
+     * reloaded since. The signer is created under the key lock so that none outlives
+     * {@link #shutdown()}.
+     */
+    private KeySigner getSigner() throws UnrecoverableKeyException, NoSuchAlgorithmException, KeyStoreException, InvalidKeyException {
+        KeySigner current = signer;
+        if (current != null && current.key == privateKey) return current;
+        keyLock.lock();
+        try {
+            PrivateKey key = getPrivateKey();
+            current = signer;
+            if (current == null || current.key != key) {
+                current = new KeySigner(key, precomputedSigning ? new PrecomputedSigner(key) : null);
+                signer = current;
+            }
+            return current;
+        } finally {
+            keyLock.unlock();
+        }
+    }
+
+    /**
+     * Returns the client private key, unwrapping it from the key store on first use only. The key is
+     * loaded under the key lock, so a load racing {@link #shutdown()} either completes first and is
+     * destroyed by it, or fails.
+     */
+    private PrivateKey getPrivateKey() throws UnrecoverableKeyException, NoSuchAlgorithmException, KeyStoreException {
+        PrivateKey key = privateKey;
+        if (key != null) return key;
+        keyLock.lock();
+        try {
+            key = privateKey;
+            if (key == null) {
+                key = loadPrivateKey();
+                privateKey = key;
+            }
+            return key;
+        } finally {
+            keyLock.unlock();
+        }
+    }
+
+    private PrivateKey loadPrivateKey() throws UnrecoverableKeyException, NoSuchAlgorithmException, KeyStoreException {
+        char[] secret = password;
+        if (secret == null) throw new IllegalStateException("Client is shut down");
+        long startedAt = System.nanoTime();
+        Key key = keyStore.getKey(keyAlias, secret);
+        metrics.recordKeyLoad(System.nanoTime() - startedAt);
+        if (!(key instanceof PrivateKey))
+            throw new UnrecoverableKeyException("No private key for alias: " + keyAlias);
+        return (PrivateKey) key;
+    }
+
+    /**
+     * Re-reads the client private key from the key store, e.g. after the key entry has been rotated.
+     * The previous key is not destroyed, as requests being signed concurrently may still use it, but
+     * is kept until {@link #shutdown()} destroys it along with the current key.
+     */
+    public void reloadKey() throws UnrecoverableKeyException, NoSuchAlgorithmException, KeyStoreException {
+        keyLock.lock();
+        try {
+            PrivateKey previous = privateKey;
+            privateKey = loadPrivateKey();
+            signer = null;
+            if (previous != null && previous != privateKey) supersededKeys.add(previous);
+        } finally {
+            keyLock.unlock();
+        }
     }
 
-    private void retrieveCertificate() throws SecurityException, CertificateException, NoSuchProviderException, NoSuchAlgorithmException, SignatureException, InvalidKeyException {
-        CertificateResponse response = integrationTrust.cert(CertificateRequest.newBuilder().build());
-        X509Certificate newCertificate = decodeX509Certificate(response.getPayload().getServerCertificate().toByteArray());
-        if (verify(sha256(response.getPayload().toByteArray()), newCertificate.getPublicKey(), response.getSignature().toByteArray())
-                && response.getPayload().getResultCode() == ResultCodeExtProtocol.OK) {
-            certificate = newCertificate;
-        } else throw new SecurityException("Certificate error");
+    private static void destroyKey(PrivateKey key) {
+        if (key == null || key.isDestroyed()) return;
+        try {
+            key.destroy();
+        } catch (DestroyFailedException ignored) {
+            // provider keys are not required to support destruction
+        }
+    }
+
+    /**
+     * Signs with one private key, either through a {@link PrecomputedSigner} or through a pool of
+     * signature engines initialized with the key. The engines belong to this signer rather than to
+     * the threads that used them, so dropping the signer on reload or shutdown drops them all.
+     */
+    private static final class KeySigner {
+        private final PrivateKey key;
+        private final PrecomputedSigner precomputed;
+        private final Queue<Signature> engines = new ConcurrentLinkedQueue<>();
+
+        private KeySigner(PrivateKey key, PrecomputedSigner precomputed) {
+            this.key = key;
+            this.precomputed = precomputed;
+        }
+
+        byte[] sign(byte[] hash) throws NoSuchAlgorithmException, InvalidKeyException, SignatureException {
+            if (precomputed != null) return precomputed.sign(hash);
+            Signature engine = engines.poll();
+            if (engine == null) engine = newSigner(key);
+            engine.update(hash);
+            byte[] signature = engine.sign();
+            engines.offer(engine);
+            return signature;
+        }
+    }
+
+    protected static final class SignedPayload {
+        private final ByteString payload;
+        private final ByteString signature;
+
+        private SignedPayload(ByteString payload, ByteString signature) {
+            this.payload = payload;
+            this.signature = signature;
+        }
+
+        public ByteString getSignature() {
+            return signature;
+        }
+
+        /**
+         * Returns the signed payload bytes as the unknown field {@link MessageUtils#ENCODED_PAYLOAD_FIELD},
+         * to be set on the request envelope together with the payload message they were encoded from.
+         */
+        public UnknownFieldSet getEncodedPayloadField() {
+            return UnknownFieldSet.newBuilder()
+                    .addField(ENCODED_PAYLOAD_FIELD, UnknownFieldSet.Field.newBuilder().addLengthDelimited(payload).build())
+                    .build();
+        }
     }
 
     public void shutdown() {
-        authorityChannel.shutdown();
+        if (ownsConnection) connection.shutdown();
+        keyLock.lock();
+        try {
+            PrivateKey key = privateKey;
+            privateKey = null;
+            signer = null;
+            destroyKey(key);
+            for (PrivateKey superseded : supersededKeys) destroyKey(superseded);
+            supersededKeys.clear();
+            char[] secret = password;
+            password = null;
+            if (secret != null) Arrays.fill(secret, '\0');
+        } finally {
+            keyLock.unlock();
+        }
     }
 }
\ No newline at end of file
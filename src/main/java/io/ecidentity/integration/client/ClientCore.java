@@ -0,0 +1,46 @@
+package io.ecidentity.integration.client;
+
+import com.google.protobuf.AbstractMessage;
+import io.ecidentity.integration.metrics.ClientMetrics;
+import io.grpc.MethodDescriptor;
+
+import java.util.function.Function;
+
+/**
+ * Base of the auth and sign client cores: admits calls through the access key's admission control
+ * and signs their payloads on behalf of one client.
+ */
+abstract class ClientCore {
+
+    final ClientBase client;
+    final String accessKeyId;
+    private final AdmissionControl admission;
+
+    ClientCore(ClientBase client, String accessKeyId, AdmissionControl admission) {
+        this.client = client;
+        this.accessKeyId = accessKeyId;
+        this.admission = admission;
+    }
+
+    <T> ResponseCall admit(ResponseListener<T> listener, Function<ResponseListener<T>, ResponseCall> start) {
+        return admission != null ? admission.admit(accessKeyId, listener, start) : start.apply(listener);
+    }
+
+    /**
+     * Signs the payload of a call to {@code method}, or reports the failure to the listener and
+     * returns {@code null}.
+     */
+    ClientBase.SignedPayload sign(MethodDescriptor<?, ?> method, AbstractMessage payload, ResponseListener<?> listener) {
+        try {
+            ClientMetrics metrics = client.metrics();
+            if (metrics == ClientMetrics.NOOP) return client.signPayload(payload);
+            long startedAt = System.nanoTime();
+            ClientBase.SignedPayload signed = client.signPayload(payload);
+            metrics.recordStage(method.getFullMethodName(), ClientMetrics.Stage.SIGN, System.nanoTime() - startedAt);
+            return signed;
+        } catch (Exception e) {
+            listener.onError(new Exception(e.getMessage()));
+            return null;
+        }
+    }
+}
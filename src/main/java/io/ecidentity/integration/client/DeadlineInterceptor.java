@@ -0,0 +1,36 @@
+package io.ecidentity.integration.client;
+
+import io.grpc.CallOptions;
+import io.grpc.Channel;
+import io.grpc.ClientCall;
+import io.grpc.ClientInterceptor;
+import io.grpc.Deadline;
+import io.grpc.MethodDescriptor;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Applies the per-method deadlines of a {@link CallPolicy}, keeping an earlier deadline already set
+ * on the call.
+ */
+final class DeadlineInterceptor implements ClientInterceptor {
+
+    private final Map<String, Long> deadlines;
+
+    DeadlineInterceptor(Map<String, Long> deadlines) {
+        this.deadlines = deadlines;
+    }
+
+    @Override
+    public <ReqT, RespT> ClientCall<ReqT, RespT> interceptCall(MethodDescriptor<ReqT, RespT> method, CallOptions callOptions, Channel next) {
+        Long timeout = deadlines.get(method.getFullMethodName());
+        if (timeout != null) {
+            Deadline deadline = Deadline.after(timeout, TimeUnit.NANOSECONDS);
+            if (callOptions.getDeadline() == null || deadline.isBefore(callOptions.getDeadline())) {
+                callOptions = callOptions.withDeadline(deadline);
+            }
+        }
+        return next.newCall(method, callOptions);
+    }
+}
@@ -0,0 +1,59 @@
+package io.ecidentity.integration.client;
+
+import io.ecidentity.protocol.authority.SignHashResponsePayload;
+
+/**
+ * Outcome of signing one hash of a bulk request. A failed hash does not fail the rest of the batch,
+ * instead its result carries the error.
+ */
+public final class HashSignResult {
+
+    private final long index;
+    private final byte[] hash;
+    private final SignHashResponsePayload payload;
+    private final Throwable error;
+
+    private HashSignResult(long index, byte[] hash, SignHashResponsePayload payload, Throwable error) {
+        this.index = index;
+        this.hash = hash;
+        this.payload = payload;
+        this.error = error;
+    }
+
+    static HashSignResult success(long index, byte[] hash, SignHashResponsePayload payload) {
+        return new HashSignResult(index, hash, payload, null);
+    }
+
+    static HashSignResult failure(long index, byte[] hash, Throwable error) {
+        return new HashSignResult(index, hash, null, error);
+    }
+
+    /**
+     * Position of the hash in the submitted sequence, starting at 0.
+     */
+    public long getIndex() {
+        return index;
+    }
+
+    public byte[] getHash() {
+        return hash;
+    }
+
+    /**
+     * Final response for the hash, or {@code null} if signing failed.
+     */
+    public SignHashResponsePayload getPayload() {
+        return payload;
+    }
+
+    /**
+     * Reason signing failed, or {@code null} on success.
+     */
+    public Throwable getError() {
+        return error;
+    }
+
+    public boolean isSuccess() {
+        return error == null;
+    }
+}
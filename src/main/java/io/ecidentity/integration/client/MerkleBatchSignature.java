@@ -0,0 +1,46 @@
+package io.ecidentity.integration.client;
+
+import io.ecidentity.integration.utils.MerkleProof;
+import io.ecidentity.integration.utils.MerkleTree;
+import io.ecidentity.protocol.authority.SignHashResponsePayload;
+
+/**
+ * Signature over the Merkle root of a batch of document hashes, together with the inclusion proof
+ * of every document.
+ */
+public final class MerkleBatchSignature {
+
+    private final MerkleTree tree;
+    private final SignHashResponsePayload payload;
+
+    MerkleBatchSignature(MerkleTree tree, SignHashResponsePayload payload) {
+        this.tree = tree;
+        this.payload = payload;
+    }
+
+    public byte[] getRoot() {
+        return tree.getRoot();
+    }
+
+    /**
+     * Signature of the root made with the user's key.
+     */
+    public byte[] getSignedRoot() {
+        return payload.getSignedHash().toByteArray();
+    }
+
+    public SignHashResponsePayload getPayload() {
+        return payload;
+    }
+
+    public int size() {
+        return tree.size();
+    }
+
+    /**
+     * Inclusion proof of the document hash submitted at {@code index}.
+     */
+    public MerkleProof getProof(int index) {
+        return tree.getProof(index);
+    }
+}
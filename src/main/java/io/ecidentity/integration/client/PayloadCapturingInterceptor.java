@@ -0,0 +1,298 @@
+package io.ecidentity.integration.client;
+
+import com.google.protobuf.ByteString;
+import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.CodedOutputStream;
+import com.google.protobuf.Descriptors;
+import com.google.protobuf.Message;
+import com.google.protobuf.UnknownFieldSet;
+import com.google.protobuf.UnsafeByteOperations;
+import com.google.protobuf.WireFormat;
+import io.grpc.CallOptions;
+import io.grpc.Channel;
+import io.grpc.ClientCall;
+import io.grpc.ClientInterceptor;
+import io.grpc.Drainable;
+import io.grpc.KnownLength;
+import io.grpc.MethodDescriptor;
+import io.grpc.Status;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import static io.ecidentity.integration.utils.CryptoUtils.sha256;
+import static io.ecidentity.integration.utils.MessageUtils.ENCODED_PAYLOAD_FIELD;
+import static io.ecidentity.integration.utils.MessageUtils.PAYLOAD_DIGEST_FIELD;
+
+/**
+ * Replaces the response marshaller of every signed-envelope method with one that hashes the payload
+ * exactly as it was received. The digest is attached to the parsed envelope (see
+ * {@link io.ecidentity.integration.utils.MessageUtils#getPayloadDigest}) so that signature
+ * verification never has to re-encode the payload.
+ * <p>
+ * The request marshaller is replaced as well: a request envelope carrying its signed payload bytes
+ * in {@link io.ecidentity.integration.utils.MessageUtils#ENCODED_PAYLOAD_FIELD} is written with
+ * those bytes as its payload field, so the payload is not encoded a second time.
+ */
+final class PayloadCapturingInterceptor implements ClientInterceptor {
+
+    private static final String PAYLOAD = "payload";
+    private static final int BUFFER_SIZE = 4096;
+
+    private final ConcurrentMap<String, MethodDescriptor<?, ?>> methods = new ConcurrentHashMap<>();
+
+    @Override
+    public <ReqT, RespT> ClientCall<ReqT, RespT> interceptCall(MethodDescriptor<ReqT, RespT> method, CallOptions callOptions, Channel next) {
+        return next.newCall(capturing(method), callOptions);
+    }
+
+    @SuppressWarnings("unchecked")
+    <ReqT, RespT> MethodDescriptor<ReqT, RespT> capturing(MethodDescriptor<ReqT, RespT> method) {
+        MethodDescriptor<?, ?> capturing = methods.get(method.getFullMethodName());
+        if (capturing == null) {
+            capturing = wrap(method);
+            MethodDescriptor<?, ?> previous = methods.putIfAbsent(method.getFullMethodName(), capturing);
+            if (previous != null) capturing = previous;
+        }
+        return (MethodDescriptor<ReqT, RespT>) capturing;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <ReqT, RespT> MethodDescriptor<ReqT, RespT> wrap(MethodDescriptor<ReqT, RespT> method) {
+        MethodDescriptor.Marshaller<ReqT> requestMarshaller = method.getRequestMarshaller();
+        MethodDescriptor.Marshaller<RespT> responseMarshaller = method.getResponseMarshaller();
+        Descriptors.FieldDescriptor requestPayload = payloadField(requestMarshaller);
+        Descriptors.FieldDescriptor responsePayload = payloadField(responseMarshaller);
+        if (requestPayload == null && responsePayload == null) return method;
+        if (requestPayload != null) {
+            requestMarshaller = new EncodedPayloadMarshaller<>((MethodDescriptor.PrototypeMarshaller<ReqT>) requestMarshaller, requestPayload);
+        }
+        if (responsePayload != null) {
+            MethodDescriptor.PrototypeMarshaller<RespT> marshaller = (MethodDescriptor.PrototypeMarshaller<RespT>) responseMarshaller;
+            responseMarshaller = new CapturingMarshaller<>(marshaller, (Message) marshaller.getMessagePrototype(), responsePayload.getNumber());
+        }
+        return method.toBuilder(requestMarshaller, responseMarshaller).build();
+    }
+
+    /**
+     * Returns the payload field of the messages of a protobuf marshaller, {@code null} if they have none.
+     */
+    private static Descriptors.FieldDescriptor payloadField(MethodDescriptor.Marshaller<?> marshaller) {
+        if (!(marshaller instanceof MethodDescriptor.PrototypeMarshaller)) return null;
+        Object prototype = ((MethodDescriptor.PrototypeMarshaller<?>) marshaller).getMessagePrototype();
+        if (!(prototype instanceof Message)) return null;
+        Descriptors.FieldDescriptor payload = ((Message) prototype).getDescriptorForType().findFieldByName(PAYLOAD);
+        if (payload == null || payload.getJavaType() != Descriptors.FieldDescriptor.JavaType.MESSAGE) return null;
+        return payload;
+    }
+
+    /**
+     * Writes a request envelope carrying its encoded payload with those bytes as the payload field,
+     * after the other fields of the envelope. Envelopes without encoded payload are written as usual.
+     */
+    private static final class EncodedPayloadMarshaller<T> implements MethodDescriptor.PrototypeMarshaller<T> {
+        private final MethodDescriptor.PrototypeMarshaller<T> delegate;
+        private final Descriptors.FieldDescriptor payloadField;
+
+        private EncodedPayloadMarshaller(MethodDescriptor.PrototypeMarshaller<T> delegate, Descriptors.FieldDescriptor payloadField) {
+            this.delegate = delegate;
+            this.payloadField = payloadField;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public InputStream stream(T value) {
+            Message envelope = (Message) value;
+            UnknownFieldSet unknownFields = envelope.getUnknownFields();
+            if (!unknownFields.hasField(ENCODED_PAYLOAD_FIELD)) return delegate.stream(value);
+            List<ByteString> encoded = unknownFields.getField(ENCODED_PAYLOAD_FIELD).getLengthDelimitedList();
+            Message.Builder rest = envelope.toBuilder()
+                    .setUnknownFields(UnknownFieldSet.newBuilder(unknownFields).clearField(ENCODED_PAYLOAD_FIELD).build());
+            if (encoded.size() != 1) return delegate.stream((T) rest.build());
+            return new EncodedPayloadStream(rest.clearField(payloadField).build(), payloadField.getNumber(), encoded.get(0));
+        }
+
+        @Override
+        public T parse(InputStream stream) {
+            return delegate.parse(stream);
+        }
+
+        @Override
+        public T getMessagePrototype() {
+            return delegate.getMessagePrototype();
+        }
+
+        @Override
+        public Class<T> getMessageClass() {
+            return delegate.getMessageClass();
+        }
+    }
+
+    /**
+     * Envelope followed by its encoded payload field, drained straight into the transport buffer.
+     */
+    private static final class EncodedPayloadStream extends InputStream implements Drainable, KnownLength {
+        private Message envelope;
+        private final int payloadField;
+        private final ByteString payload;
+        private ByteArrayInputStream partial;
+
+        private EncodedPayloadStream(Message envelope, int payloadField, ByteString payload) {
+            this.envelope = envelope;
+            this.payloadField = payloadField;
+            this.payload = payload;
+        }
+
+        @Override
+        public int drainTo(OutputStream target) throws IOException {
+            if (envelope == null) {
+                if (partial == null) return 0;
+                int remaining = partial.available();
+                byte[] rest = new byte[remaining];
+                partial.read(rest, 0, remaining);
+                target.write(rest);
+                partial = null;
+                return remaining;
+            }
+            int size = size();
+            CodedOutputStream output = CodedOutputStream.newInstance(target, Math.min(size, BUFFER_SIZE));
+            writeTo(output);
+            output.flush();
+            envelope = null;
+            return size;
+        }
+
+        @Override
+        public int read() throws IOException {
+            materialize();
+            return partial == null ? -1 : partial.read();
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            materialize();
+            return partial == null ? -1 : partial.read(buffer, offset, length);
+        }
+
+        @Override
+        public int available() {
+            if (envelope != null) return size();
+            return partial == null ? 0 : partial.available();
+        }
+
+        private int size() {
+            return envelope.getSerializedSize() + CodedOutputStream.computeBytesSize(payloadField, payload);
+        }
+
+        private void writeTo(CodedOutputStream output) throws IOException {
+            envelope.writeTo(output);
+            output.writeBytes(payloadField, payload);
+        }
+
+        private void materialize() throws IOException {
+            if (envelope == null) return;
+            byte[] bytes = new byte[size()];
+            CodedOutputStream output = CodedOutputStream.newInstance(bytes);
+            writeTo(output);
+            output.checkNoSpaceLeft();
+            envelope = null;
+            partial = new ByteArrayInputStream(bytes);
+        }
+    }
+
+    private static final class CapturingMarshaller<T> implements MethodDescriptor.PrototypeMarshaller<T> {
+        private final MethodDescriptor.PrototypeMarshaller<T> delegate;
+        private final Message prototype;
+        private final int payloadField;
+
+        private CapturingMarshaller(MethodDescriptor.PrototypeMarshaller<T> delegate, Message prototype, int payloadField) {
+            this.delegate = delegate;
+            this.prototype = prototype;
+            this.payloadField = payloadField;
+        }
+
+        @Override
+        public InputStream stream(T value) {
+            return delegate.stream(value);
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public T parse(InputStream stream) {
+            try {
+                byte[] encoded = readFully(stream);
+                Message.Builder builder = prototype.newBuilderForType().mergeFrom(encoded);
+                byte[] digest = payloadDigest(encoded);
+                UnknownFieldSet unknownFields = builder.getUnknownFields();
+                if (digest != null || unknownFields.hasField(PAYLOAD_DIGEST_FIELD)) {
+                    // never trust a digest field sent by the peer
+                    UnknownFieldSet.Builder fields = UnknownFieldSet.newBuilder(unknownFields).clearField(PAYLOAD_DIGEST_FIELD);
+                    if (digest != null) {
+                        fields.addField(PAYLOAD_DIGEST_FIELD, UnknownFieldSet.Field.newBuilder()
+                                .addLengthDelimited(UnsafeByteOperations.unsafeWrap(digest))
+                                .build());
+                    }
+                    builder.setUnknownFields(fields.build());
+                }
+                return (T) builder.build();
+            } catch (IOException e) {
+                throw Status.INTERNAL.withDescription("Invalid protobuf byte sequence").withCause(e).asRuntimeException();
+            }
+        }
+
+        @Override
+        public T getMessagePrototype() {
+            return delegate.getMessagePrototype();
+        }
+
+        @Override
+        public Class<T> getMessageClass() {
+            return delegate.getMessageClass();
+        }
+
+        /**
+         * Hashes the bytes of the payload field in place. Returns {@code null} when the field is absent
+         * or occurs more than once, since the parser merges repeated occurrences into one message.
+         */
+        private byte[] payloadDigest(byte[] encoded) throws IOException {
+            CodedInputStream input = CodedInputStream.newInstance(encoded);
+            int offset = -1;
+            int length = 0;
+            int tag;
+            while ((tag = input.readTag()) != 0) {
+                if (WireFormat.getTagFieldNumber(tag) == payloadField
+                        && WireFormat.getTagWireType(tag) == WireFormat.WIRETYPE_LENGTH_DELIMITED) {
+                    if (offset >= 0) return null;
+                    length = input.readRawVarint32();
+                    offset = input.getTotalBytesRead();
+                    input.skipRawBytes(length);
+                } else {
+                    input.skipField(tag);
+                }
+            }
+            return offset < 0 ? null : sha256(encoded, offset, length);
+        }
+    }
+
+    private static byte[] readFully(InputStream stream) throws IOException {
+        if (stream instanceof KnownLength) {
+            byte[] buffer = new byte[stream.available()];
+            int read = 0;
+            int count;
+            while (read < buffer.length && (count = stream.read(buffer, read, buffer.length - read)) >= 0) read += count;
+            if (read != buffer.length) throw new IOException("Unexpected end of message");
+            return buffer;
+        }
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        byte[] chunk = new byte[4096];
+        int count;
+        while ((count = stream.read(chunk)) >= 0) output.write(chunk, 0, count);
+        return output.toByteArray();
+    }
+}
@@ -1,29 +1,46 @@
 package io.ecidentity.integration.client;
 
-import com.google.protobuf.ByteString;
+import io.ecidentity.integration.metrics.ClientMetrics;
 import io.ecidentity.integration.utils.Config;
+import io.ecidentity.integration.utils.MerkleTree;
 import io.ecidentity.protocol.authority.*;
 import io.ecidentity.protocol.types.KeyEntryTypeProtocol;
-import io.ecidentity.protocol.types.ResultCodeExtProtocol;
+import org.reactivestreams.Publisher;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+import reactor.util.function.Tuple2;
 
 import java.security.*;
 import java.security.cert.CertificateException;
-
-import static io.ecidentity.integration.utils.MessageUtils.getResultCode;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
 
 public class ReactorSignClient extends ClientBase {
 
     public static class Builder{
 
         private final Config config;
+        private final AuthorityConnection connection;
         private String accessKeyId;
         private KeyStore keyStore;
+        private String keyAlias = DEFAULT_KEY_ALIAS;
         private char[] password;
+        private Scheduler verificationScheduler = Schedulers.parallel();
+        private AdmissionControl admissionControl;
+        private boolean precomputedSigning;
+        private ClientMetrics metrics;
 
         public Builder(Config config){
             this.config = config;
+            this.connection = null;
+        }
+
+        public Builder(AuthorityConnection connection){
+            this.config = null;
+            this.connection = connection;
         }
 
         public Builder withAccessKey(String accessKey){
@@ -36,82 +53,101 @@ public class ReactorSignClient extends ClientBase {
             return this;
         }
 
+        public Builder withKeyAlias(String keyAlias){
+            this.keyAlias = keyAlias;
+            return this;
+        }
+
         public Builder withPassword(char[] password){
             this.password = password;
             return this;
         }
 
+        public Builder withVerificationScheduler(Scheduler scheduler){
+            this.verificationScheduler = scheduler;
+            return this;
+        }
+
+        public Builder withVerificationExecutor(Executor executor){
+            this.verificationScheduler = Schedulers.fromExecutor(executor);
+            return this;
+        }
+
+        /**
+         * Signs requests with a {@link io.ecidentity.integration.utils.PrecomputedSigner} instead of
+         * the JCA, which lowers the latency of every call. Requires an EC key whose private scalar
+         * can be read from the key store.
+         */
+        public ReactorSignClient.Builder withPrecomputedSigning(boolean precomputedSigning) {
+            this.precomputedSigning = precomputedSigning;
+            return this;
+        }
+
+        /**
+         * Limits the rate and the number of concurrent session calls per access key.
+         */
+        public ReactorSignClient.Builder withAdmissionControl(AdmissionControl admissionControl){
+            this.admissionControl = admissionControl;
+            return this;
+        }
+
+        /**
+         * Metrics of the connection opened for this client. A client built on a shared
+         * {@link AuthorityConnection} reports to the metrics of that connection instead.
+         */
+        public ReactorSignClient.Builder withMetrics(ClientMetrics metrics){
+            this.metrics = metrics;
+            return this;
+        }
+
         public ReactorSignClient build() throws CertificateException, NoSuchAlgorithmException, InvalidKeyException, NoSuchProviderException, SignatureException {
-            return new ReactorSignClient(accessKeyId, keyStore, password, config);
+            AuthorityConnection authority = connection != null ? connection : AuthorityConnection.open(config, metrics);
+            return new ReactorSignClient(accessKeyId, keyStore, keyAlias, password, authority, connection == null, verificationScheduler, admissionControl, precomputedSigning);
         }
     }
 
-    private final ReactorIntegrationSignServiceGrpc.ReactorIntegrationSignServiceStub integrationSign;
-    private final String accessKeyId;
+    private final SignClientCore core;
 
-    private ReactorSignClient(String accessKeyId, KeyStore keyStore, char[] password, Config config) throws NoSuchAlgorithmException, CertificateException, NoSuchProviderException, InvalidKeyException, SignatureException {
-        super(config, keyStore, password);
+    private ReactorSignClient(String accessKeyId, KeyStore keyStore, String keyAlias, char[] password, AuthorityConnection connection, boolean ownsConnection, Scheduler verificationScheduler, AdmissionControl admissionControl, boolean precomputedSigning) {
+        super(connection, ownsConnection, keyStore, keyAlias, password, verificationScheduler::schedule, precomputedSigning);
 
-        this.integrationSign = ReactorIntegrationSignServiceGrpc.newReactorStub(authorityChannel);
-        this.accessKeyId = accessKeyId;
+        this.core = new SignClientCore(this, accessKeyId, admissionControl);
     }
 
     public Flux<InitSignResponsePayload> init(String email, KeyEntryTypeProtocol type) {
-        InitSignRequestPayload payload = InitSignRequestPayload.newBuilder()
-                .setEmail(email)
-                .setType(type)
-                .build();
-        byte[] signature;
-        try {
-            signature = signMessage(payload);
-        } catch (Exception e) {
-            return Flux.error(new Exception(e.getMessage()));
-        }
-        return integrationSign.init(InitSignRequest.newBuilder()
-                .setAccessKeyId(accessKeyId)
-                .setSignature(ByteString.copyFrom(signature))
-                .setPayload(payload)
-                .build())
-                .map(response -> (InitSignResponsePayload) handleResponse(response))
-                .takeUntil(result -> getResultCode(result) != ResultCodeExtProtocol.PENDING);
+        return Flux.from(new ResponsePublisher<InitSignResponsePayload>(listener -> core.init(email, type, listener)));
     }
 
     public Flux<SignHashResponsePayload> hash(String sessionId, byte[] hash) {
-        SignHashRequestPayload payload = SignHashRequestPayload.newBuilder()
-                .setSessionId(sessionId)
-                .setHashToSign(ByteString.copyFrom(hash))
-                .build();
-        byte[] signature;
-        try {
-            signature = signMessage(payload);
-        } catch (Exception e) {
-            return Flux.error(new Exception(e.getMessage()));
-        }
-        return integrationSign.hash(SignHashRequest.newBuilder()
-                .setAccessKeyId(accessKeyId)
-                .setSignature(ByteString.copyFrom(signature))
-                .setPayload(payload)
-                .build())
-                .map(response -> (SignHashResponsePayload) handleResponse(response))
-                .takeUntil(result -> getResultCode(result) != ResultCodeExtProtocol.PENDING);
+        return Flux.from(new ResponsePublisher<SignHashResponsePayload>(listener -> core.hash(sessionId, hash, listener)));
     }
 
-    public Mono<CancelSignResponsePayload> cancel(String sessionId) {
-        CancelSignRequestPayload payload = CancelSignRequestPayload.newBuilder()
-                .setSessionId(sessionId)
-                .build();
-        byte[] signature;
-        try {
-            signature = signMessage(payload);
-        } catch (Exception e) {
-            return Mono.error(new Exception(e.getMessage()));
-        }
-        return integrationSign.cancel(CancelSignRequest.newBuilder()
-                .setAccessKeyId(accessKeyId)
-                .setSignature(ByteString.copyFrom(signature))
-                .setPayload(payload)
-                .build())
-                .map(response -> (CancelSignResponsePayload) handleResponse(response));
+    /**
+     * Signs a sequence of hashes within one sign session, keeping up to {@code concurrency} requests
+     * in flight. With {@code ordered} results are emitted in submission order, otherwise as they
+     * complete. A hash that fails yields a failed {@link HashSignResult} instead of ending the batch.
+     */
+    public Flux<HashSignResult> hashAll(String sessionId, Publisher<byte[]> hashes, int concurrency, boolean ordered) {
+        Function<Tuple2<Long, byte[]>, Mono<HashSignResult>> signHash = item -> hash(sessionId, item.getT2())
+                .last()
+                .map(payload -> HashSignResult.success(item.getT1(), item.getT2(), payload))
+                .onErrorResume(e -> Mono.just(HashSignResult.failure(item.getT1(), item.getT2(), e)));
+        Flux<Tuple2<Long, byte[]>> indexed = Flux.from(hashes).index();
+        return ordered ? indexed.flatMapSequential(signHash, concurrency) : indexed.flatMap(signHash, concurrency);
+    }
 
+    /**
+     * Signs a batch of document hashes with a single user approval: only the root of a Merkle tree
+     * over the hashes is sent to be signed, and the result carries a proof for each document.
+     */
+    public Mono<MerkleBatchSignature> signBatch(String sessionId, List<byte[]> hashes) {
+        return Mono.fromCallable(() -> MerkleTree.build(hashes))
+                .flatMap(tree -> hash(sessionId, tree.getRoot())
+                        .last()
+                        .map(payload -> new MerkleBatchSignature(tree, payload)));
+    }
+
+    public Mono<CancelSignResponsePayload> cancel(String sessionId) {
+        return Mono.fromDirect(new ResponsePublisher<CancelSignResponsePayload>(listener -> core.cancel(sessionId, listener)));
     }
 }
\ No newline at end of file
@@ -0,0 +1,21 @@
+package io.ecidentity.integration.client;
+
+/**
+ * Handle of a call started by the client core. No response is delivered before it is requested.
+ */
+interface ResponseCall {
+
+    ResponseCall FAILED = new ResponseCall() {
+        @Override
+        public void request(long count) {
+        }
+
+        @Override
+        public void cancel() {
+        }
+    };
+
+    void request(long count);
+
+    void cancel();
+}
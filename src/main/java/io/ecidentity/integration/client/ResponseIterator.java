@@ -0,0 +1,125 @@
+package io.ecidentity.integration.client;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.function.Function;
+
+/**
+ * Blocking view of the responses of one call. Each response is requested from the authority only
+ * when {@link #hasNext()} needs it, so a slow reader never buffers more than one response.
+ * <p>
+ * Waiting parks the calling thread without holding a monitor, which makes it safe to use from
+ * virtual threads. The iterator is meant to be consumed by one thread; {@link #close()} cancels
+ * the call and may be invoked from any thread.
+ */
+public final class ResponseIterator<T> implements Iterator<T>, AutoCloseable {
+
+    private static final Object COMPLETED = new Object();
+
+    private static final class Failure {
+        private final Throwable error;
+
+        private Failure(Throwable error) {
+            this.error = error;
+        }
+    }
+
+    private final BlockingQueue<Object> signals = new LinkedBlockingQueue<>();
+    private final ResponseListener<T> listener = new ResponseListener<T>() {
+        @Override
+        public void onNext(T payload) {
+            signals.add(payload);
+        }
+
+        @Override
+        public void onError(Throwable error) {
+            signals.add(new Failure(error));
+        }
+
+        @Override
+        public void onCompleted() {
+            signals.add(COMPLETED);
+        }
+    };
+
+    private volatile ResponseCall call = ResponseCall.FAILED;
+    private T next;
+    private boolean requested;
+    private boolean finished;
+
+    private ResponseIterator() {
+    }
+
+    static <T> ResponseIterator<T> start(Function<ResponseListener<T>, ResponseCall> start) {
+        ResponseIterator<T> iterator = new ResponseIterator<>();
+        iterator.call = start.apply(iterator.listener);
+        return iterator;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public boolean hasNext() {
+        if (next != null) return true;
+        if (finished) return false;
+        Object signal = signals.poll();
+        if (signal == null) {
+            if (!requested) {
+                requested = true;
+                call.request(1);
+            }
+            signal = take();
+        }
+        requested = false;
+        if (signal == COMPLETED) {
+            finished = true;
+            return false;
+        }
+        if (signal instanceof Failure) {
+            finished = true;
+            Throwable error = ((Failure) signal).error;
+            throw error instanceof RuntimeException ? (RuntimeException) error : new RuntimeException(error);
+        }
+        next = (T) signal;
+        return true;
+    }
+
+    @Override
+    public T next() {
+        if (!hasNext()) throw new NoSuchElementException();
+        T payload = next;
+        next = null;
+        return payload;
+    }
+
+    /**
+     * Waits for the call to end and returns its final response.
+     */
+    public T last() {
+        T last = null;
+        try {
+            while (hasNext()) last = next();
+        } finally {
+            close();
+        }
+        if (last == null) throw new NoSuchElementException("Call completed without a response");
+        return last;
+    }
+
+    @Override
+    public void close() {
+        call.cancel();
+    }
+
+    private Object take() {
+        try {
+            return signals.take();
+        } catch (InterruptedException e) {
+            finished = true;
+            close();
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting for the authority", e);
+        }
+    }
+}
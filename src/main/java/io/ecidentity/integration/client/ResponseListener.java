@@ -0,0 +1,14 @@
+package io.ecidentity.integration.client;
+
+/**
+ * Receives the verified response payloads of a call started by the client core. Callbacks of one
+ * call are never invoked concurrently.
+ */
+interface ResponseListener<T> {
+
+    void onNext(T payload);
+
+    void onError(Throwable error);
+
+    void onCompleted();
+}
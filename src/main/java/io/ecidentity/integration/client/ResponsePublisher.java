@@ -0,0 +1,105 @@
+package io.ecidentity.integration.client;
+
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Exposes a call of the client core as a Reactive Streams publisher. Every subscription starts a
+ * new call, and subscriber demand is passed straight to the transport as gRPC flow control.
+ */
+final class ResponsePublisher<T> implements Publisher<T> {
+
+    private final Function<ResponseListener<T>, ResponseCall> start;
+
+    ResponsePublisher(Function<ResponseListener<T>, ResponseCall> start) {
+        this.start = start;
+    }
+
+    @Override
+    public void subscribe(Subscriber<? super T> subscriber) {
+        if (subscriber == null) throw new NullPointerException("subscriber");
+        CallSubscription<T> subscription = new CallSubscription<>(subscriber);
+        subscriber.onSubscribe(subscription);
+        subscription.start(start);
+    }
+
+    private static final class CallSubscription<T> implements Subscription, ResponseListener<T> {
+        private final Subscriber<? super T> subscriber;
+        // demand requested before the call is started, -1 once it is
+        private final AtomicLong pending = new AtomicLong();
+
+        private volatile ResponseCall call;
+        private volatile boolean done;
+
+        private CallSubscription(Subscriber<? super T> subscriber) {
+            this.subscriber = subscriber;
+        }
+
+        private void start(Function<ResponseListener<T>, ResponseCall> start) {
+            if (done) return;
+            ResponseCall started;
+            try {
+                started = start.apply(this);
+            } catch (RuntimeException e) {
+                onError(e);
+                return;
+            }
+            call = started;
+            if (done) {
+                started.cancel();
+                return;
+            }
+            long requested = pending.getAndSet(-1);
+            if (requested > 0) started.request(requested);
+        }
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                cancel();
+                subscriber.onError(new IllegalArgumentException("Requested " + n + " items, must be positive (Reactive Streams rule 3.9)"));
+                return;
+            }
+            for (; ; ) {
+                long current = pending.get();
+                if (current < 0) {
+                    call.request(n);
+                    return;
+                }
+                long updated = current + n < 0 ? Long.MAX_VALUE : current + n;
+                if (pending.compareAndSet(current, updated)) return;
+            }
+        }
+
+        @Override
+        public void cancel() {
+            if (done) return;
+            done = true;
+            ResponseCall started = call;
+            if (started != null) started.cancel();
+        }
+
+        @Override
+        public void onNext(T payload) {
+            if (!done) subscriber.onNext(payload);
+        }
+
+        @Override
+        public void onError(Throwable error) {
+            if (done) return;
+            done = true;
+            subscriber.onError(error);
+        }
+
+        @Override
+        public void onCompleted() {
+            if (done) return;
+            done = true;
+            subscriber.onComplete();
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package io.ecidentity.integration.client;
+
+import io.ecidentity.protocol.types.ResultCodeExtProtocol;
+
+/**
+ * Raised when the authority answers with a verified response whose result code is neither
+ * {@code OK} nor {@code PENDING}. It reaches callers as the cause of the exception a call fails with.
+ */
+public final class ResultCodeException extends RuntimeException {
+
+    private final ResultCodeExtProtocol resultCode;
+
+    public ResultCodeException(ResultCodeExtProtocol resultCode) {
+        super("Result: " + resultCode.name());
+        this.resultCode = resultCode;
+    }
+
+    public ResultCodeExtProtocol getResultCode() {
+        return resultCode;
+    }
+}
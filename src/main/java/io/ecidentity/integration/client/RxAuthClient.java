@@ -1,28 +1,40 @@
 package io.ecidentity.integration.client;
 
-import com.google.protobuf.ByteString;
+import io.ecidentity.integration.metrics.ClientMetrics;
 import io.ecidentity.integration.utils.Config;
 import io.ecidentity.protocol.authority.*;
 import io.ecidentity.protocol.types.KeyEntryTypeProtocol;
-import io.ecidentity.protocol.types.ResultCodeExtProtocol;
 import io.reactivex.Flowable;
+import io.reactivex.Scheduler;
 import io.reactivex.Single;
+import io.reactivex.schedulers.Schedulers;
 
 import java.security.*;
 import java.security.cert.CertificateException;
-
-import static io.ecidentity.integration.utils.MessageUtils.getResultCode;
+import java.util.concurrent.Executor;
 
 public class RxAuthClient extends ClientBase {
 
     public static class Builder {
         private final Config config;
+        private final AuthorityConnection connection;
         private String accessKeyId;
         private KeyStore keyStore;
+        private String keyAlias = DEFAULT_KEY_ALIAS;
         private char[] password;
+        private Scheduler verificationScheduler = Schedulers.computation();
+        private AdmissionControl admissionControl;
+        private boolean precomputedSigning;
+        private ClientMetrics metrics;
 
         public Builder(Config config) {
             this.config = config;
+            this.connection = null;
+        }
+
+        public Builder(AuthorityConnection connection) {
+            this.config = null;
+            this.connection = connection;
         }
 
         public RxAuthClient.Builder withAccessKey(String accessKey) {
@@ -35,109 +47,90 @@ public class RxAuthClient extends ClientBase {
             return this;
         }
 
+        public RxAuthClient.Builder withKeyAlias(String keyAlias) {
+            this.keyAlias = keyAlias;
+            return this;
+        }
+
         public RxAuthClient.Builder withPassword(char[] password) {
             this.password = password;
             return this;
         }
 
+        public RxAuthClient.Builder withVerificationScheduler(Scheduler scheduler) {
+            this.verificationScheduler = scheduler;
+            return this;
+        }
+
+        public RxAuthClient.Builder withVerificationExecutor(Executor executor) {
+            this.verificationScheduler = Schedulers.from(executor);
+            return this;
+        }
+
+        /**
+         * Signs requests with a {@link io.ecidentity.integration.utils.PrecomputedSigner} instead of
+         * the JCA, which lowers the latency of every call. Requires an EC key whose private scalar
+         * can be read from the key store.
+         */
+        public RxAuthClient.Builder withPrecomputedSigning(boolean precomputedSigning) {
+            this.precomputedSigning = precomputedSigning;
+            return this;
+        }
+
+        /**
+         * Limits the rate and the number of concurrent session calls per access key.
+         */
+        public RxAuthClient.Builder withAdmissionControl(AdmissionControl admissionControl) {
+            this.admissionControl = admissionControl;
+            return this;
+        }
+
+        /**
+         * Metrics of the connection opened for this client. A client built on a shared
+         * {@link AuthorityConnection} reports to the metrics of that connection instead.
+         */
+        public RxAuthClient.Builder withMetrics(ClientMetrics metrics) {
+            this.metrics = metrics;
+            return this;
+        }
+
         public RxAuthClient build() throws CertificateException, NoSuchAlgorithmException, InvalidKeyException, NoSuchProviderException, SignatureException {
-            return new RxAuthClient(accessKeyId, keyStore, password, config);
+            AuthorityConnection authority = connection != null ? connection : AuthorityConnection.open(config, metrics);
+            return new RxAuthClient(accessKeyId, keyStore, keyAlias, password, authority, connection == null, verificationScheduler, admissionControl, precomputedSigning);
         }
     }
 
 
-    private final RxIntegrationAuthServiceGrpc.RxIntegrationAuthServiceStub integrationAuth;
-    private final String accessKeyId;
+    private final AuthClientCore core;
 
     public RxAuthClient(String accessKeyId, KeyStore keyStore, char[] password, Config config) throws NoSuchAlgorithmException, CertificateException, NoSuchProviderException, InvalidKeyException, SignatureException {
-        super(config, keyStore, password);
+        this(accessKeyId, keyStore, DEFAULT_KEY_ALIAS, password, config);
+    }
 
-        this.integrationAuth = RxIntegrationAuthServiceGrpc.newRxStub(authorityChannel);
-        this.accessKeyId = accessKeyId;
+    public RxAuthClient(String accessKeyId, KeyStore keyStore, String keyAlias, char[] password, Config config) throws NoSuchAlgorithmException, CertificateException, NoSuchProviderException, InvalidKeyException, SignatureException {
+        this(accessKeyId, keyStore, keyAlias, password, AuthorityConnection.open(config), true, Schedulers.computation(), null, false);
+    }
+
+    private RxAuthClient(String accessKeyId, KeyStore keyStore, String keyAlias, char[] password, AuthorityConnection connection, boolean ownsConnection, Scheduler verificationScheduler, AdmissionControl admissionControl, boolean precomputedSigning) {
+        super(connection, ownsConnection, keyStore, keyAlias, password, verificationScheduler::scheduleDirect, precomputedSigning);
+
+        this.core = new AuthClientCore(this, accessKeyId, admissionControl);
     }
 
     public Single<InitAuthResponsePayload> init(String email, KeyEntryTypeProtocol type, byte[] hashToSign, Boolean report, Boolean subject, Boolean sanctions) {
-        InitAuthRequestPayload payload = InitAuthRequestPayload.newBuilder()
-                .setEmail(email)
-                .setType(type)
-                .setHashToSign(ByteString.copyFrom(hashToSign))
-                .setWithReport(report)
-                .setExtractSubject(subject)
-                .setWithSanctions(sanctions)
-                .build();
-        byte[] signature;
-        try {
-            signature = signMessage(payload);
-        } catch (Exception e) {
-            return Single.error(new Exception(e.getMessage()));
-        }
-        return integrationAuth.init(InitAuthRequest.newBuilder()
-                .setAccessKeyId(accessKeyId)
-                .setSignature(ByteString.copyFrom(signature))
-                .setPayload(payload)
-                .build())
-                .map(response -> (InitAuthResponsePayload) handleResponse(response));
+        return Single.fromPublisher(new ResponsePublisher<InitAuthResponsePayload>(listener -> core.init(email, type, hashToSign, report, subject, sanctions, listener)));
     }
 
     public Flowable<AuthStatusResponsePayload> check(String sessionId) {
-        AuthStatusRequestPayload payload = AuthStatusRequestPayload.newBuilder()
-                .setSessionId(sessionId)
-                .build();
-        byte[] signature;
-        try {
-            signature = signMessage(payload);
-        } catch (Exception e) {
-            return Flowable.error(new Exception(e.getMessage()));
-        }
-        return integrationAuth.check(AuthStatusRequest.newBuilder()
-                .setAccessKeyId(accessKeyId)
-                .setSignature(ByteString.copyFrom(signature))
-                .setPayload(payload)
-                .build())
-                .map(response -> (AuthStatusResponsePayload) handleResponse(response))
-                .takeUntil(result -> getResultCode(result) != ResultCodeExtProtocol.PENDING);
+        return Flowable.fromPublisher(new ResponsePublisher<AuthStatusResponsePayload>(listener -> core.check(sessionId, listener)));
     }
 
     public Flowable<AuthStatusResponsePayload> auth(
             String email, KeyEntryTypeProtocol type, byte[] hashToSign, Boolean report, Boolean subject, Boolean sanctions) {
-        InitAuthRequestPayload payload = InitAuthRequestPayload.newBuilder()
-                .setEmail(email)
-                .setType(type)
-                .setHashToSign(ByteString.copyFrom(hashToSign))
-                .setWithReport(report)
-                .setExtractSubject(subject)
-                .setWithSanctions(sanctions)
-                .build();
-        byte[] signature;
-        try {
-            signature = signMessage(payload);
-        } catch (Exception e) {
-            return Flowable.error(new Exception(e.getMessage()));
-        }
-        return integrationAuth.auth(InitAuthRequest.newBuilder()
-                .setAccessKeyId(accessKeyId)
-                .setSignature(ByteString.copyFrom(signature))
-                .setPayload(payload)
-                .build())
-                .map(response -> (AuthStatusResponsePayload) handleResponse(response))
-                .takeUntil(result -> getResultCode(result) != ResultCodeExtProtocol.PENDING);
+        return Flowable.fromPublisher(new ResponsePublisher<AuthStatusResponsePayload>(listener -> core.auth(email, type, hashToSign, report, subject, sanctions, listener)));
     }
 
     public Single<CancelAuthResponsePayload> cancel(String sessionId) {
-        CancelAuthRequestPayload payload = CancelAuthRequestPayload.newBuilder()
-                .setSessionId(sessionId)
-                .build();
-        byte[] signature;
-        try {
-            signature = signMessage(payload);
-        } catch (Exception e) {
-            return Single.error(new Exception(e.getMessage()));
-        }
-        return integrationAuth.cancel(CancelAuthRequest.newBuilder()
-                .setAccessKeyId(accessKeyId)
-                .setSignature(ByteString.copyFrom(signature))
-                .setPayload(payload)
-                .build())
-                .map(response -> (CancelAuthResponsePayload) handleResponse(response));
+        return Single.fromPublisher(new ResponsePublisher<CancelAuthResponsePayload>(listener -> core.cancel(sessionId, listener)));
     }
 }
\ No newline at end of file
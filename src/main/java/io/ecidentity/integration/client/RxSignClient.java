@@ -1,29 +1,46 @@
 package io.ecidentity.integration.client;
 
-import com.google.protobuf.ByteString;
+import io.ecidentity.integration.metrics.ClientMetrics;
 import io.ecidentity.integration.utils.Config;
+import io.ecidentity.integration.utils.MerkleTree;
 import io.ecidentity.protocol.authority.*;
 import io.ecidentity.protocol.types.KeyEntryTypeProtocol;
-import io.ecidentity.protocol.types.ResultCodeExtProtocol;
 import io.reactivex.Flowable;
+import io.reactivex.functions.Function;
+import io.reactivex.Scheduler;
 import io.reactivex.Single;
+import io.reactivex.schedulers.Schedulers;
+import org.reactivestreams.Publisher;
 
 import java.security.*;
 import java.security.cert.CertificateException;
-
-import static io.ecidentity.integration.utils.MessageUtils.getResultCode;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLong;
 
 public class RxSignClient  extends ClientBase {
 
     public static class Builder{
 
         private final Config config;
+        private final AuthorityConnection connection;
         private String accessKeyId;
         private KeyStore keyStore;
+        private String keyAlias = DEFAULT_KEY_ALIAS;
         private char[] password;
+        private Scheduler verificationScheduler = Schedulers.computation();
+        private AdmissionControl admissionControl;
+        private boolean precomputedSigning;
+        private ClientMetrics metrics;
 
         public Builder(Config config){
             this.config = config;
+            this.connection = null;
+        }
+
+        public Builder(AuthorityConnection connection){
+            this.config = null;
+            this.connection = connection;
         }
 
         public RxSignClient.Builder withAccessKey(String accessKey){
@@ -36,82 +53,108 @@ public class RxSignClient  extends ClientBase {
             return this;
         }
 
+        public RxSignClient.Builder withKeyAlias(String keyAlias){
+            this.keyAlias = keyAlias;
+            return this;
+        }
+
         public RxSignClient.Builder withPassword(char[] password){
             this.password = password;
             return this;
         }
 
+        public RxSignClient.Builder withVerificationScheduler(Scheduler scheduler){
+            this.verificationScheduler = scheduler;
+            return this;
+        }
+
+        public RxSignClient.Builder withVerificationExecutor(Executor executor){
+            this.verificationScheduler = Schedulers.from(executor);
+            return this;
+        }
+
+        /**
+         * Signs requests with a {@link io.ecidentity.integration.utils.PrecomputedSigner} instead of
+         * the JCA, which lowers the latency of every call. Requires an EC key whose private scalar
+         * can be read from the key store.
+         */
+        public RxSignClient.Builder withPrecomputedSigning(boolean precomputedSigning) {
+            this.precomputedSigning = precomputedSigning;
+            return this;
+        }
+
+        /**
+         * Limits the rate and the number of concurrent session calls per access key.
+         */
+        public RxSignClient.Builder withAdmissionControl(AdmissionControl admissionControl){
+            this.admissionControl = admissionControl;
+            return this;
+        }
+
+        /**
+         * Metrics of the connection opened for this client. A client built on a shared
+         * {@link AuthorityConnection} reports to the metrics of that connection instead.
+         */
+        public RxSignClient.Builder withMetrics(ClientMetrics metrics){
+            this.metrics = metrics;
+            return this;
+        }
+
         public RxSignClient build() throws CertificateException, NoSuchAlgorithmException, InvalidKeyException, NoSuchProviderException, SignatureException {
-            return new RxSignClient(accessKeyId, keyStore, password, config);
+            AuthorityConnection authority = connection != null ? connection : AuthorityConnection.open(config, metrics);
+            return new RxSignClient(accessKeyId, keyStore, keyAlias, password, authority, connection == null, verificationScheduler, admissionControl, precomputedSigning);
         }
     }
 
-    private final RxIntegrationSignServiceGrpc.RxIntegrationSignServiceStub integrationSign;
-    private final String accessKeyId;
+    private final SignClientCore core;
 
-    private RxSignClient(String accessKeyId, KeyStore keyStore, char[] password, Config config) throws NoSuchAlgorithmException, CertificateException, NoSuchProviderException, InvalidKeyException, SignatureException {
-        super(config, keyStore, password);
+    private RxSignClient(String accessKeyId, KeyStore keyStore, String keyAlias, char[] password, AuthorityConnection connection, boolean ownsConnection, Scheduler verificationScheduler, AdmissionControl admissionControl, boolean precomputedSigning) {
+        super(connection, ownsConnection, keyStore, keyAlias, password, verificationScheduler::scheduleDirect, precomputedSigning);
 
-        this.integrationSign = RxIntegrationSignServiceGrpc.newRxStub(authorityChannel);
-        this.accessKeyId = accessKeyId;
+        this.core = new SignClientCore(this, accessKeyId, admissionControl);
     }
 
     public Flowable<InitSignResponsePayload> init(String email, KeyEntryTypeProtocol type) {
-        InitSignRequestPayload payload = InitSignRequestPayload.newBuilder()
-                .setEmail(email)
-                .setType(type)
-                .build();
-        byte[] signature;
-        try {
-            signature = signMessage(payload);
-        } catch (Exception e) {
-            return Flowable.error(new Exception(e.getMessage()));
-        }
-        return integrationSign.init(InitSignRequest.newBuilder()
-                .setAccessKeyId(accessKeyId)
-                .setSignature(ByteString.copyFrom(signature))
-                .setPayload(payload)
-                .build())
-                .map(response -> (InitSignResponsePayload) handleResponse(response))
-                .takeUntil(result -> getResultCode(result) != ResultCodeExtProtocol.PENDING);
+        return Flowable.fromPublisher(new ResponsePublisher<InitSignResponsePayload>(listener -> core.init(email, type, listener)));
     }
 
     public Flowable<SignHashResponsePayload> hash(String sessionId, byte[] hash) {
-        SignHashRequestPayload payload = SignHashRequestPayload.newBuilder()
-                .setSessionId(sessionId)
-                .setHashToSign(ByteString.copyFrom(hash))
-                .build();
-        byte[] signature;
-        try {
-            signature = signMessage(payload);
-        } catch (Exception e) {
-            return Flowable.error(new Exception(e.getMessage()));
-        }
-        return integrationSign.hash(SignHashRequest.newBuilder()
-                .setAccessKeyId(accessKeyId)
-                .setSignature(ByteString.copyFrom(signature))
-                .setPayload(payload)
-                .build())
-                .map(response -> (SignHashResponsePayload) handleResponse(response))
-                .takeUntil(result -> getResultCode(result) != ResultCodeExtProtocol.PENDING);
+        return Flowable.fromPublisher(new ResponsePublisher<SignHashResponsePayload>(listener -> core.hash(sessionId, hash, listener)));
     }
 
-    public Single<CancelSignResponsePayload> cancel(String sessionId) {
-        CancelSignRequestPayload payload = CancelSignRequestPayload.newBuilder()
-                .setSessionId(sessionId)
-                .build();
-        byte[] signature;
-        try {
-            signature = signMessage(payload);
-        } catch (Exception e) {
-            return Single.error(new Exception(e.getMessage()));
-        }
-        return integrationSign.cancel(CancelSignRequest.newBuilder()
-                .setAccessKeyId(accessKeyId)
-                .setSignature(ByteString.copyFrom(signature))
-                .setPayload(payload)
-                .build())
-                .map(response -> (CancelSignResponsePayload) handleResponse(response));
+    /**
+     * Signs a sequence of hashes within one sign session, keeping up to {@code concurrency} requests
+     * in flight. With {@code ordered} results are emitted in submission order, otherwise as they
+     * complete. A hash that fails yields a failed {@link HashSignResult} instead of ending the batch.
+     */
+    public Flowable<HashSignResult> hashAll(String sessionId, Publisher<byte[]> hashes, int concurrency, boolean ordered) {
+        return Flowable.defer(() -> {
+            AtomicLong counter = new AtomicLong();
+            Function<byte[], Flowable<HashSignResult>> signHash = hash -> {
+                long index = counter.getAndIncrement();
+                return hash(sessionId, hash)
+                        .lastOrError()
+                        .map(payload -> HashSignResult.success(index, hash, payload))
+                        .onErrorReturn(e -> HashSignResult.failure(index, hash, e))
+                        .toFlowable();
+            };
+            Flowable<byte[]> source = Flowable.fromPublisher(hashes);
+            return ordered ? source.concatMapEager(signHash, concurrency, 1) : source.flatMap(signHash, concurrency);
+        });
+    }
 
+    /**
+     * Signs a batch of document hashes with a single user approval: only the root of a Merkle tree
+     * over the hashes is sent to be signed, and the result carries a proof for each document.
+     */
+    public Single<MerkleBatchSignature> signBatch(String sessionId, List<byte[]> hashes) {
+        return Single.fromCallable(() -> MerkleTree.build(hashes))
+                .flatMap(tree -> hash(sessionId, tree.getRoot())
+                        .lastOrError()
+                        .map(payload -> new MerkleBatchSignature(tree, payload)));
+    }
+
+    public Single<CancelSignResponsePayload> cancel(String sessionId) {
+        return Single.fromPublisher(new ResponsePublisher<CancelSignResponsePayload>(listener -> core.cancel(sessionId, listener)));
     }
 }
\ No newline at end of file
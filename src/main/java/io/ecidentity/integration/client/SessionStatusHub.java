@@ -0,0 +1,88 @@
+package io.ecidentity.integration.client;
+
+import io.ecidentity.protocol.authority.AuthStatusResponsePayload;
+import reactor.core.publisher.Flux;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+
+/**
+ * Multiplexes status subscriptions for pending sessions.
+ * <p>
+ * All subscribers watching the same session id share one upstream status stream, and a subscriber
+ * that joins late immediately receives the latest status. The upstream stream is cancelled once the
+ * last subscriber of a session cancels, and the session is forgotten as soon as its stream ends, so
+ * open streams and memory scale with unique pending sessions rather than with subscribers.
+ */
+public final class SessionStatusHub<T> {
+
+    private final Function<String, Flux<T>> upstream;
+    private final ConcurrentMap<String, Flux<T>> sessions = new ConcurrentHashMap<>();
+    private final AtomicInteger openStreams = new AtomicInteger();
+    private final AtomicInteger subscribers = new AtomicInteger();
+
+    public SessionStatusHub(Function<String, Flux<T>> upstream) {
+        this.upstream = upstream;
+    }
+
+    public static SessionStatusHub<AuthStatusResponsePayload> forAuth(ReactorAuthClient client) {
+        return new SessionStatusHub<>(client::check);
+    }
+
+    /**
+     * Returns the status stream of the session, opening the upstream stream on first subscription only.
+     */
+    public Flux<T> watch(String sessionId) {
+        return Flux.defer(() -> session(sessionId))
+                .doOnSubscribe(subscription -> subscribers.incrementAndGet())
+                .doFinally(signal -> subscribers.decrementAndGet());
+    }
+
+    /**
+     * Number of sessions with an upstream stream open or being opened.
+     */
+    public int getSessionCount() {
+        return sessions.size();
+    }
+
+    /**
+     * Number of upstream status streams currently open.
+     */
+    public int getOpenStreamCount() {
+        return openStreams.get();
+    }
+
+    /**
+     * Number of downstream subscribers across all sessions.
+     */
+    public int getSubscriberCount() {
+        return subscribers.get();
+    }
+
+    private Flux<T> session(String sessionId) {
+        Flux<T> shared = sessions.get(sessionId);
+        if (shared == null) {
+            Flux<T> created = share(sessionId);
+            shared = sessions.putIfAbsent(sessionId, created);
+            if (shared == null) shared = created;
+        }
+        return shared;
+    }
+
+    private Flux<T> share(String sessionId) {
+        AtomicReference<Flux<T>> self = new AtomicReference<>();
+        Flux<T> shared = Flux.defer(() -> upstream.apply(sessionId))
+                .doOnSubscribe(subscription -> openStreams.incrementAndGet())
+                .doFinally(signal -> {
+                    openStreams.decrementAndGet();
+                    sessions.remove(sessionId, self.get());
+                })
+                .replay(1)
+                .refCount();
+        self.set(shared);
+        return shared;
+    }
+}
@@ -0,0 +1,68 @@
+package io.ecidentity.integration.client;
+
+import com.google.protobuf.ByteString;
+import io.ecidentity.protocol.authority.*;
+import io.ecidentity.protocol.types.KeyEntryTypeProtocol;
+
+/**
+ * Transport-level implementation of the sign calls shared by all sign client flavours: builds and
+ * signs the request, sends it and delivers the verified payloads to a listener.
+ */
+final class SignClientCore extends ClientCore {
+
+    SignClientCore(ClientBase client, String accessKeyId, AdmissionControl admission) {
+        super(client, accessKeyId, admission);
+    }
+
+    ResponseCall init(String email, KeyEntryTypeProtocol type, ResponseListener<InitSignResponsePayload> listener) {
+        return admit(listener, admitted -> startInit(email, type, admitted));
+    }
+
+    private ResponseCall startInit(String email, KeyEntryTypeProtocol type, ResponseListener<InitSignResponsePayload> listener) {
+        InitSignRequestPayload payload = InitSignRequestPayload.newBuilder()
+                .setEmail(email)
+                .setType(type)
+                .build();
+        ClientBase.SignedPayload signed = sign(IntegrationSignServiceGrpc.getInitMethod(), payload, listener);
+        if (signed == null) return ResponseCall.FAILED;
+        return client.startCall(IntegrationSignServiceGrpc.getInitMethod(), InitSignRequest.newBuilder()
+                .setAccessKeyId(accessKeyId)
+                .setSignature(signed.getSignature())
+                .setPayload(payload)
+                .setUnknownFields(signed.getEncodedPayloadField())
+                .build(), true, listener);
+    }
+
+    ResponseCall hash(String sessionId, byte[] hash, ResponseListener<SignHashResponsePayload> listener) {
+        return admit(listener, admitted -> startHash(sessionId, hash, admitted));
+    }
+
+    private ResponseCall startHash(String sessionId, byte[] hash, ResponseListener<SignHashResponsePayload> listener) {
+        SignHashRequestPayload payload = SignHashRequestPayload.newBuilder()
+                .setSessionId(sessionId)
+                .setHashToSign(ByteString.copyFrom(hash))
+                .build();
+        ClientBase.SignedPayload signed = sign(IntegrationSignServiceGrpc.getHashMethod(), payload, listener);
+        if (signed == null) return ResponseCall.FAILED;
+        return client.startCall(IntegrationSignServiceGrpc.getHashMethod(), SignHashRequest.newBuilder()
+                .setAccessKeyId(accessKeyId)
+                .setSignature(signed.getSignature())
+                .setPayload(payload)
+                .setUnknownFields(signed.getEncodedPayloadField())
+                .build(), true, listener);
+    }
+
+    ResponseCall cancel(String sessionId, ResponseListener<CancelSignResponsePayload> listener) {
+        CancelSignRequestPayload payload = CancelSignRequestPayload.newBuilder()
+                .setSessionId(sessionId)
+                .build();
+        ClientBase.SignedPayload signed = sign(IntegrationSignServiceGrpc.getCancelMethod(), payload, listener);
+        if (signed == null) return ResponseCall.FAILED;
+        return client.startCall(IntegrationSignServiceGrpc.getCancelMethod(), CancelSignRequest.newBuilder()
+                .setAccessKeyId(accessKeyId)
+                .setSignature(signed.getSignature())
+                .setPayload(payload)
+                .setUnknownFields(signed.getEncodedPayloadField())
+                .build(), false, listener);
+    }
+}
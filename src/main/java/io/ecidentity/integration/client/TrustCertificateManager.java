@@ -0,0 +1,230 @@
+package io.ecidentity.integration.client;
+
+import io.ecidentity.integration.metrics.ClientMetrics;
+import io.ecidentity.integration.utils.PrecomputedVerifier;
+import io.ecidentity.protocol.authority.CertificateRequest;
+import io.ecidentity.protocol.authority.CertificateResponse;
+import io.ecidentity.protocol.authority.IntegrationTrustServiceGrpc;
+import io.ecidentity.protocol.types.ResultCodeExtProtocol;
+import io.grpc.Channel;
+import io.grpc.stub.StreamObserver;
+
+import java.security.InvalidKeyException;
+import java.security.NoSuchAlgorithmException;
+import java.security.NoSuchProviderException;
+import java.security.PublicKey;
+import java.security.SignatureException;
+import java.security.cert.CertificateException;
+import java.security.cert.X509Certificate;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static io.ecidentity.integration.utils.CryptoUtils.decodeX509Certificate;
+import static io.ecidentity.integration.utils.CryptoUtils.verify;
+
+/**
+ * Holds the authority certificate used to verify responses.
+ * <p>
+ * The certificate is refreshed in the background shortly before it expires, concurrent refresh
+ * requests share a single in-flight {@code cert} call, and readers only do a volatile read. Readers
+ * never block: once the certificate has expired, e.g. because the authority was unreachable, they
+ * start a refresh and fail with the expiry of the certificate until the refresh has succeeded.
+ * Each accepted certificate comes with a {@link PrecomputedVerifier} of its key, so responses are
+ * verified without decoding the key or initializing a {@code Signature}.
+ */
+final class TrustCertificateManager {
+
+    private static final long REFRESH_MARGIN_MILLIS = TimeUnit.MINUTES.toMillis(5);
+    private static final long RETRY_DELAY_MILLIS = TimeUnit.SECONDS.toMillis(10);
+    private static final long REQUEST_DEADLINE_SECONDS = 30;
+
+    static final class TrustedCertificate {
+        private final X509Certificate certificate;
+        private final PublicKey publicKey;
+        private final PrecomputedVerifier verifier;
+        private final long notAfter;
+
+        private TrustedCertificate(X509Certificate certificate) throws InvalidKeyException {
+            this.certificate = certificate;
+            this.publicKey = certificate.getPublicKey();
+            this.verifier = new PrecomputedVerifier(publicKey);
+            this.notAfter = certificate.getNotAfter().getTime();
+        }
+
+        X509Certificate getCertificate() {
+            return certificate;
+        }
+
+        PublicKey getPublicKey() {
+            return publicKey;
+        }
+
+        /**
+         * Verifier of the certificate key, with its tables computed once per certificate.
+         */
+        PrecomputedVerifier getVerifier() {
+            return verifier;
+        }
+
+        boolean isExpired(long now) {
+            return now > notAfter;
+        }
+    }
+
+    private final IntegrationTrustServiceGrpc.IntegrationTrustServiceStub integrationTrust;
+    private final ScheduledExecutorService scheduler;
+    private final ClientMetrics metrics;
+    private final AtomicReference<CompletableFuture<TrustedCertificate>> inFlight = new AtomicReference<>();
+
+    private volatile TrustedCertificate current;
+    private volatile ScheduledFuture<?> scheduledRefresh;
+    private volatile boolean closed;
+
+    TrustCertificateManager(Channel channel, ClientMetrics metrics) {
+        this.integrationTrust = IntegrationTrustServiceGrpc.newStub(channel);
+        this.metrics = metrics;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "ecidentity-trust-refresh");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Returns the current certificate. If it has expired, a refresh is started in the background and
+     * the expiry is thrown, as responses are delivered on the verification executor and must not
+     * wait there for the authority.
+     */
+    TrustedCertificate get() throws CertificateException {
+        TrustedCertificate trusted = current;
+        if (trusted == null) throw new CertificateException("No authority certificate");
+        if (!trusted.isExpired(System.currentTimeMillis())) return trusted;
+        refresh();
+        // a refresh that completed in the meantime has replaced the certificate
+        trusted = current;
+        trusted.getCertificate().checkValidity();
+        return trusted;
+    }
+
+    /**
+     * Starts a refresh unless one is already in flight and returns the pending result.
+     */
+    CompletableFuture<TrustedCertificate> refresh() {
+        for (; ; ) {
+            CompletableFuture<TrustedCertificate> pending = inFlight.get();
+            if (pending != null) return pending;
+            CompletableFuture<TrustedCertificate> created = new CompletableFuture<>();
+            if (inFlight.compareAndSet(null, created)) {
+                fetch(created);
+                return created;
+            }
+        }
+    }
+
+    void close() {
+        closed = true;
+        ScheduledFuture<?> scheduled = scheduledRefresh;
+        if (scheduled != null) scheduled.cancel(false);
+        scheduler.shutdownNow();
+    }
+
+    private void fetch(CompletableFuture<TrustedCertificate> result) {
+        long startedAt = System.nanoTime();
+        integrationTrust.withDeadlineAfter(REQUEST_DEADLINE_SECONDS, TimeUnit.SECONDS)
+                .cert(CertificateRequest.getDefaultInstance(), new StreamObserver<CertificateResponse>() {
+                    private CertificateResponse response;
+
+                    @Override
+                    public void onNext(CertificateResponse value) {
+                        response = value;
+                    }
+
+                    @Override
+                    public void onError(Throwable t) {
+                        complete(result, null, t, startedAt);
+                    }
+
+                    @Override
+                    public void onCompleted() {
+                        try {
+                            complete(result, accept(response), null, startedAt);
+                        } catch (Exception e) {
+                            complete(result, null, e, startedAt);
+                        }
+                    }
+                });
+    }
+
+    private static TrustedCertificate accept(CertificateResponse response) throws CertificateException, NoSuchProviderException, NoSuchAlgorithmException, SignatureException, InvalidKeyException {
+        if (response == null) throw new SecurityException("Certificate error");
+        X509Certificate newCertificate = decodeX509Certificate(response.getPayload().getServerCertificate().toByteArray());
+        newCertificate.checkValidity();
+        if (verify(ClientBase.payloadDigest(response, response.getPayload()), newCertificate.getPublicKey(), response.getSignature().toByteArray())
+                && response.getPayload().getResultCode() == ResultCodeExtProtocol.OK) {
+            return new TrustedCertificate(newCertificate);
+        } else throw new SecurityException("Certificate error");
+    }
+
+    private void complete(CompletableFuture<TrustedCertificate> result, TrustedCertificate trusted, Throwable error, long startedAt) {
+        metrics.recordCertificateRefresh(System.nanoTime() - startedAt, trusted != null);
+        if (trusted != null) {
+            current = trusted;
+            long now = System.currentTimeMillis();
+            long margin = Math.min(REFRESH_MARGIN_MILLIS, Math.max(0, trusted.notAfter - now) / 2);
+            // a certificate close to expiry would otherwise be fetched again right away, over and over
+            schedule(Math.max(RETRY_DELAY_MILLIS, trusted.notAfter - margin - now));
+        } else {
+            schedule(RETRY_DELAY_MILLIS);
+        }
+        inFlight.compareAndSet(result, null);
+        if (trusted != null) result.complete(trusted);
+        else result.completeExceptionally(error);
+    }
+
+    private void schedule(long delayMillis) {
+        if (closed) return;
+        ScheduledFuture<?> previous = scheduledRefresh;
+        if (previous != null) previous.cancel(false);
+        try {
+            scheduledRefresh = scheduler.schedule(() -> {
+                refresh();
+            }, delayMillis, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException ignored) {
+            // closed concurrently
+        }
+    }
+
+    static TrustedCertificate await(CompletableFuture<TrustedCertificate> future) throws CertificateException, NoSuchProviderException, NoSuchAlgorithmException, SignatureException, InvalidKeyException {
+        return await(future, TimeUnit.SECONDS.toMillis(REQUEST_DEADLINE_SECONDS));
+    }
+
+    /**
+     * Waits for a refresh. A timeout does not cancel it, so a later call may find the new certificate.
+     */
+    static TrustedCertificate await(CompletableFuture<TrustedCertificate> future, long timeoutMillis) throws CertificateException, NoSuchProviderException, NoSuchAlgorithmException, SignatureException, InvalidKeyException {
+        try {
+            return future.get(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            throw new CertificateException("Timed out retrieving the authority certificate", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CertificateException("Interrupted while retrieving the authority certificate", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof CertificateException) throw (CertificateException) cause;
+            if (cause instanceof NoSuchProviderException) throw (NoSuchProviderException) cause;
+            if (cause instanceof NoSuchAlgorithmException) throw (NoSuchAlgorithmException) cause;
+            if (cause instanceof SignatureException) throw (SignatureException) cause;
+            if (cause instanceof InvalidKeyException) throw (InvalidKeyException) cause;
+            if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+            throw new CertificateException("Unable to retrieve the authority certificate", cause);
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package io.ecidentity.integration.client;
+
+import com.google.protobuf.AbstractMessage;
+import io.ecidentity.integration.metrics.ClientMetrics;
+import io.ecidentity.protocol.types.ResultCodeExtProtocol;
+import io.grpc.ClientCall;
+import io.grpc.Metadata;
+import io.grpc.Status;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static io.ecidentity.integration.utils.MessageUtils.getResultCode;
+
+/**
+ * Verifies every response of a call with {@link ClientBase#handleResponse} before handing the
+ * payload to the listener. A streaming call ends after the first payload that is no longer
+ * {@code PENDING}.
+ */
+final class VerifiedCall<RespT extends AbstractMessage, T> extends ClientCall.Listener<RespT> implements ResponseCall {
+
+    private final ClientBase client;
+    private final ClientCall<?, RespT> call;
+    private final ResponseListener<T> listener;
+    private final boolean streaming;
+    private final ClientMetrics metrics;
+    private final String rpc;
+    private final boolean timed;
+    private final long startedAt;
+    private final AtomicBoolean closed = new AtomicBoolean();
+    private final AtomicLong outstanding = new AtomicLong();
+
+    private long pendingSince;
+    private boolean responded;
+    private volatile boolean done;
+
+    VerifiedCall(ClientBase client, ClientCall<?, RespT> call, ResponseListener<T> listener, boolean streaming, ClientMetrics metrics, String rpc) {
+        this.client = client;
+        this.call = call;
+        this.listener = listener;
+        this.streaming = streaming;
+        this.metrics = metrics;
+        this.rpc = rpc;
+        this.timed = metrics != ClientMetrics.NOOP;
+        this.startedAt = timed ? System.nanoTime() : 0;
+        if (timed && streaming) metrics.streamOpened(rpc);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void onMessage(RespT response) {
+        outstanding.decrementAndGet();
+        if (done) return;
+        long receivedAt = 0;
+        if (timed) {
+            receivedAt = System.nanoTime();
+            if (!responded) metrics.recordStage(rpc, ClientMetrics.Stage.ROUND_TRIP, receivedAt - startedAt);
+            responded = true;
+        }
+        AbstractMessage payload;
+        try {
+            payload = client.handleResponse(response);
+        } catch (RuntimeException e) {
+            // a result code other than OK or PENDING is only raised once the response is verified
+            if (timed && e.getCause() instanceof ResultCodeException) {
+                metrics.recordResult(rpc, ((ResultCodeException) e.getCause()).getResultCode());
+            }
+            done = true;
+            closed();
+            call.cancel("Response rejected", e);
+            listener.onError(e);
+            return;
+        }
+        ResultCodeExtProtocol resultCode = getResultCode(payload);
+        boolean pending = resultCode == ResultCodeExtProtocol.PENDING;
+        if (timed) {
+            long verifiedAt = System.nanoTime();
+            metrics.recordResult(rpc, resultCode);
+            metrics.recordStage(rpc, ClientMetrics.Stage.VERIFY, verifiedAt - receivedAt);
+            if (pending && pendingSince == 0) pendingSince = verifiedAt;
+            else if (!pending && pendingSince != 0) metrics.recordStage(rpc, ClientMetrics.Stage.PENDING, verifiedAt - pendingSince);
+        }
+        listener.onNext((T) payload);
+        if (streaming && !pending) {
+            done = true;
+            closed();
+            call.cancel("Session completed", null);
+            listener.onCompleted();
+        }
+    }
+
+    @Override
+    public void onClose(Status status, Metadata trailers) {
+        closed();
+        if (done) return;
+        done = true;
+        if (status.isOk()) listener.onCompleted();
+        else listener.onError(status.asRuntimeException(trailers));
+    }
+
+    /**
+     * Passes demand on to gRPC, which counts it in an {@code int}. Messages requested and not yet
+     * received are capped at {@link Integer#MAX_VALUE}, so repeated unbounded requests do not
+     * overflow it; a stream never gets near that many messages.
+     */
+    @Override
+    public void request(long count) {
+        if (done) return;
+        for (; ; ) {
+            long current = outstanding.get();
+            int granted = (int) Math.min(count, Integer.MAX_VALUE - current);
+            if (granted <= 0) return;
+            if (outstanding.compareAndSet(current, current + granted)) {
+                call.request(granted);
+                return;
+            }
+        }
+    }
+
+    @Override
+    public void cancel() {
+        if (done) return;
+        done = true;
+        call.cancel("Cancelled by client", null);
+    }
+
+    private void closed() {
+        if (timed && streaming && closed.compareAndSet(false, true)) metrics.streamClosed(rpc);
+    }
+}
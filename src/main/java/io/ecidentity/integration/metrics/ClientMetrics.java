@@ -0,0 +1,57 @@
+package io.ecidentity.integration.metrics;
+
+import io.ecidentity.protocol.types.ResultCodeExtProtocol;
+
+/**
+ * Receives timings and counts from the clients and their {@code AuthorityConnection}.
+ * <p>
+ * All methods have empty defaults, so an implementation only overrides what it records. Methods are
+ * called on the request and transport paths and must not block. Calls are identified by their full
+ * gRPC method name, e.g. {@code IntegrationAuthService/init}. When no metrics are configured the
+ * clients do not even read the clock.
+ */
+public interface ClientMetrics {
+
+    ClientMetrics NOOP = new ClientMetrics() {
+    };
+
+    enum Stage {
+        /**
+         * Encoding and signing the request payload.
+         */
+        SIGN,
+        /**
+         * From starting the call to its first response.
+         */
+        ROUND_TRIP,
+        /**
+         * From the first {@code PENDING} status of a streaming call to its final status.
+         */
+        PENDING,
+        /**
+         * Verifying the signature of one response.
+         */
+        VERIFY
+    }
+
+    default void recordStage(String rpc, Stage stage, long nanos) {
+    }
+
+    default void recordResult(String rpc, ResultCodeExtProtocol resultCode) {
+    }
+
+    default void streamOpened(String rpc) {
+    }
+
+    default void streamClosed(String rpc) {
+    }
+
+    /**
+     * Time spent unwrapping the client private key from the key store.
+     */
+    default void recordKeyLoad(long nanos) {
+    }
+
+    default void recordCertificateRefresh(long nanos, boolean success) {
+    }
+}
@@ -0,0 +1,99 @@
+package io.ecidentity.integration.metrics;
+
+import io.ecidentity.protocol.types.ResultCodeExtProtocol;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * In-memory {@link ClientMetrics} that keeps a {@link LatencyHistogram} per call and stage, for
+ * callers that want percentiles without a metrics library.
+ */
+public final class HistogramClientMetrics implements ClientMetrics {
+
+    private static final class RpcMetrics {
+        private final LatencyHistogram[] stages = new LatencyHistogram[Stage.values().length];
+        private final AtomicLongArray results = new AtomicLongArray(ResultCodeExtProtocol.values().length);
+        private final AtomicInteger openStreams = new AtomicInteger();
+
+        private RpcMetrics() {
+            for (int i = 0; i < stages.length; i++) stages[i] = new LatencyHistogram();
+        }
+    }
+
+    private final ConcurrentMap<String, RpcMetrics> rpcs = new ConcurrentHashMap<>();
+    private final LatencyHistogram keyLoad = new LatencyHistogram();
+    private final LatencyHistogram certificateRefresh = new LatencyHistogram();
+    private final LongAdder failedCertificateRefreshes = new LongAdder();
+
+    @Override
+    public void recordStage(String rpc, Stage stage, long nanos) {
+        rpc(rpc).stages[stage.ordinal()].record(nanos);
+    }
+
+    @Override
+    public void recordResult(String rpc, ResultCodeExtProtocol resultCode) {
+        if (resultCode != ResultCodeExtProtocol.UNRECOGNIZED) rpc(rpc).results.incrementAndGet(resultCode.ordinal());
+    }
+
+    @Override
+    public void streamOpened(String rpc) {
+        rpc(rpc).openStreams.incrementAndGet();
+    }
+
+    @Override
+    public void streamClosed(String rpc) {
+        rpc(rpc).openStreams.decrementAndGet();
+    }
+
+    @Override
+    public void recordKeyLoad(long nanos) {
+        keyLoad.record(nanos);
+    }
+
+    @Override
+    public void recordCertificateRefresh(long nanos, boolean success) {
+        if (success) certificateRefresh.record(nanos);
+        else failedCertificateRefreshes.increment();
+    }
+
+    public LatencyHistogram getLatency(String rpc, Stage stage) {
+        return rpc(rpc).stages[stage.ordinal()];
+    }
+
+    public long getResultCount(String rpc, ResultCodeExtProtocol resultCode) {
+        return resultCode == ResultCodeExtProtocol.UNRECOGNIZED ? 0 : rpc(rpc).results.get(resultCode.ordinal());
+    }
+
+    public int getOpenStreams(String rpc) {
+        return rpc(rpc).openStreams.get();
+    }
+
+    public LatencyHistogram getKeyLoadLatency() {
+        return keyLoad;
+    }
+
+    /**
+     * Latency of successful certificate refreshes; its count is the number of successful refreshes.
+     */
+    public LatencyHistogram getCertificateRefreshLatency() {
+        return certificateRefresh;
+    }
+
+    public long getFailedCertificateRefreshes() {
+        return failedCertificateRefreshes.sum();
+    }
+
+    private RpcMetrics rpc(String rpc) {
+        RpcMetrics metrics = rpcs.get(rpc);
+        if (metrics == null) {
+            RpcMetrics created = new RpcMetrics();
+            metrics = rpcs.putIfAbsent(rpc, created);
+            if (metrics == null) metrics = created;
+        }
+        return metrics;
+    }
+}
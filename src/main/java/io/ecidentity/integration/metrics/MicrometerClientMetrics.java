@@ -0,0 +1,108 @@
+package io.ecidentity.integration.metrics;
+
+import io.ecidentity.protocol.types.ResultCodeExtProtocol;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Publishes the client metrics to a Micrometer registry. Micrometer is an optional dependency of
+ * the SDK and only needs to be on the class path when this class is used.
+ * <p>
+ * Meters: {@code ecidentity.client.stage} timers tagged with {@code rpc} and {@code stage},
+ * {@code ecidentity.client.results} counters tagged with {@code rpc} and {@code code},
+ * {@code ecidentity.client.streams.open} gauges per {@code rpc}, the {@code ecidentity.client.key.load}
+ * timer and {@code ecidentity.client.certificate.refresh} timers tagged with {@code outcome}.
+ */
+public final class MicrometerClientMetrics implements ClientMetrics {
+
+    private final class RpcMeters {
+        private final Timer[] stages = new Timer[Stage.values().length];
+        private final Counter[] results = new Counter[ResultCodeExtProtocol.values().length];
+        private final AtomicInteger openStreams = new AtomicInteger();
+
+        private RpcMeters(String rpc) {
+            for (Stage stage : Stage.values()) {
+                stages[stage.ordinal()] = Timer.builder("ecidentity.client.stage")
+                        .tag("rpc", rpc)
+                        .tag("stage", stage.name().toLowerCase())
+                        .publishPercentileHistogram()
+                        .register(registry);
+            }
+            for (ResultCodeExtProtocol code : ResultCodeExtProtocol.values()) {
+                if (code == ResultCodeExtProtocol.UNRECOGNIZED) continue;
+                results[code.ordinal()] = Counter.builder("ecidentity.client.results")
+                        .tag("rpc", rpc)
+                        .tag("code", code.name())
+                        .register(registry);
+            }
+            Gauge.builder("ecidentity.client.streams.open", openStreams, AtomicInteger::get)
+                    .tag("rpc", rpc)
+                    .register(registry);
+        }
+    }
+
+    private final MeterRegistry registry;
+    private final ConcurrentMap<String, RpcMeters> rpcs = new ConcurrentHashMap<>();
+    private final Timer keyLoad;
+    private final Timer certificateRefreshed;
+    private final Timer certificateRefreshFailed;
+
+    public MicrometerClientMetrics(MeterRegistry registry) {
+        this.registry = registry;
+        this.keyLoad = Timer.builder("ecidentity.client.key.load")
+                .register(registry);
+        this.certificateRefreshed = Timer.builder("ecidentity.client.certificate.refresh")
+                .tag("outcome", "success")
+                .register(registry);
+        this.certificateRefreshFailed = Timer.builder("ecidentity.client.certificate.refresh")
+                .tag("outcome", "failure")
+                .register(registry);
+    }
+
+    @Override
+    public void recordStage(String rpc, Stage stage, long nanos) {
+        rpc(rpc).stages[stage.ordinal()].record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public void recordResult(String rpc, ResultCodeExtProtocol resultCode) {
+        if (resultCode != ResultCodeExtProtocol.UNRECOGNIZED) rpc(rpc).results[resultCode.ordinal()].increment();
+    }
+
+    @Override
+    public void streamOpened(String rpc) {
+        rpc(rpc).openStreams.incrementAndGet();
+    }
+
+    @Override
+    public void streamClosed(String rpc) {
+        rpc(rpc).openStreams.decrementAndGet();
+    }
+
+    @Override
+    public void recordKeyLoad(long nanos) {
+        keyLoad.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public void recordCertificateRefresh(long nanos, boolean success) {
+        (success ? certificateRefreshed : certificateRefreshFailed).record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    private RpcMeters rpc(String rpc) {
+        RpcMeters meters = rpcs.get(rpc);
+        if (meters == null) {
+            RpcMeters created = new RpcMeters(rpc);
+            meters = rpcs.putIfAbsent(rpc, created);
+            if (meters == null) meters = created;
+        }
+        return meters;
+    }
+}
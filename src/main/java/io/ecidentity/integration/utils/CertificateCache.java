@@ -0,0 +1,79 @@
+package io.ecidentity.integration.utils;
+
+import org.bouncycastle.jce.provider.BouncyCastleProvider;
+
+import java.io.ByteArrayInputStream;
+import java.nio.ByteBuffer;
+import java.security.NoSuchProviderException;
+import java.security.cert.CertificateException;
+import java.security.cert.CertificateFactory;
+import java.security.cert.X509Certificate;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decodes DER encoded X.509 certificates, returning the certificate decoded earlier for the same
+ * bytes instead of parsing them again. Entries are keyed by the SHA-256 fingerprint of the
+ * encoding, bounded in number and dropped after a time to live.
+ * <p>
+ * Certificates of returning users arrive with every auth and sign session, so their sessions only
+ * hash the certificate. Decoded certificates are immutable and shared between callers.
+ */
+public final class CertificateCache {
+
+    private static final ThreadLocal<CertificateFactory> FACTORIES = new ThreadLocal<>();
+
+    private final FingerprintCache<X509Certificate> cache;
+
+    /**
+     * @param ttl time to live of an entry, or 0 to keep entries until they are evicted
+     */
+    public CertificateCache(int maxEntries, long ttl, TimeUnit unit) {
+        this.cache = new FingerprintCache<>(maxEntries, ttl, unit);
+    }
+
+    public X509Certificate decode(byte[] encoded) throws CertificateException, NoSuchProviderException {
+        ByteBuffer fingerprint = FingerprintCache.fingerprint(encoded);
+        X509Certificate certificate = cache.get(fingerprint);
+        return certificate != null ? certificate : cache.put(fingerprint, parse(encoded));
+    }
+
+    /**
+     * Decodes the certificate without the cache, with this thread's certificate factory.
+     */
+    public static X509Certificate parse(byte[] encoded) throws CertificateException, NoSuchProviderException {
+        CertificateFactory factory = FACTORIES.get();
+        if (factory == null) {
+            factory = CertificateFactory.getInstance("X.509", BouncyCastleProvider.PROVIDER_NAME);
+            FACTORIES.set(factory);
+        }
+        return (X509Certificate) factory.generateCertificate(new ByteArrayInputStream(encoded));
+    }
+
+    public int size() {
+        return cache.size();
+    }
+
+    public long getHitCount() {
+        return cache.getHitCount();
+    }
+
+    public long getMissCount() {
+        return cache.getMissCount();
+    }
+
+    /**
+     * Share of lookups answered from the cache, between 0 and 1.
+     */
+    public double getHitRate() {
+        long hits = cache.getHitCount();
+        long total = hits + cache.getMissCount();
+        return total == 0 ? 0 : (double) hits / total;
+    }
+
+    /**
+     * Number of entries dropped because the cache was full or their time to live had passed.
+     */
+    public long getEvictionCount() {
+        return cache.getEvictionCount();
+    }
+}
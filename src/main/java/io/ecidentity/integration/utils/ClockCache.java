@@ -0,0 +1,111 @@
+package io.ecidentity.integration.utils;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded concurrent cache with approximate least recently used eviction. Hits only read the map
+ * and mark the entry as referenced, so they take no lock and do not write to shared structures
+ * other than the reference flag and the hit counter.
+ * <p>
+ * Keys are kept in a queue in insertion order. When a put takes the cache over its capacity, the
+ * key at the head of the queue is evicted unless its entry was referenced since it last reached the
+ * head, in which case the flag is cleared and the key moves to the tail (the second chance, or
+ * CLOCK, algorithm). Entries older than the time to live, if one is set, are treated as missing,
+ * replaced by the next put of their key and evicted first.
+ */
+class ClockCache<K, V> {
+
+    private static final class Cached<V> {
+        private final V value;
+        private final long createdAt;
+        private volatile boolean referenced;
+
+        private Cached(V value, long createdAt) {
+            this.value = value;
+            this.createdAt = createdAt;
+        }
+    }
+
+    private final int maxEntries;
+    private final long ttlNanos;
+    private final ConcurrentHashMap<K, Cached<V>> entries = new ConcurrentHashMap<>();
+    private final Queue<K> clock = new ConcurrentLinkedQueue<>();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    ClockCache(int maxEntries, long ttl, TimeUnit unit) {
+        if (maxEntries < 1) throw new IllegalArgumentException("Cache needs room for at least one entry");
+        if (ttl < 0) throw new IllegalArgumentException("Time to live must not be negative");
+        this.maxEntries = maxEntries;
+        this.ttlNanos = unit.toNanos(ttl);
+    }
+
+    V get(K key) {
+        Cached<V> entry = entries.get(key);
+        if (entry == null || isExpired(entry, System.nanoTime())) {
+            misses.increment();
+            return null;
+        }
+        if (!entry.referenced) entry.referenced = true;
+        hits.increment();
+        return entry.value;
+    }
+
+    V put(K key, V value) {
+        long now = System.nanoTime();
+        Cached<V> previous = entries.put(key, new Cached<>(value, now));
+        if (previous == null) {
+            clock.offer(key);
+            evict(now);
+        } else if (isExpired(previous, now)) {
+            evictions.increment();
+        }
+        return value;
+    }
+
+    /**
+     * Evicts entries until the cache is back within its capacity. A key leaves the map only when it
+     * is taken from the queue here, so each cached key is queued exactly once.
+     */
+    private void evict(long now) {
+        while (entries.size() > maxEntries) {
+            K key = clock.poll();
+            if (key == null) return;
+            Cached<V> entry = entries.get(key);
+            if (entry != null && entry.referenced && !isExpired(entry, now)) {
+                entry.referenced = false;
+                clock.offer(key);
+            } else if (entries.remove(key) != null) {
+                evictions.increment();
+            }
+        }
+    }
+
+    private boolean isExpired(Cached<V> entry, long now) {
+        return ttlNanos > 0 && now - entry.createdAt > ttlNanos;
+    }
+
+    /**
+     * Number of entries held, including expired entries that have not been replaced or evicted yet.
+     */
+    int size() {
+        return entries.size();
+    }
+
+    long getHitCount() {
+        return hits.sum();
+    }
+
+    long getMissCount() {
+        return misses.sum();
+    }
+
+    long getEvictionCount() {
+        return evictions.sum();
+    }
+}
@@ -1,23 +1,12 @@
 package io.ecidentity.integration.utils;
 
-import org.bouncycastle.asn1.ASN1Encodable;
-import org.bouncycastle.asn1.ASN1GeneralizedTime;
 import org.bouncycastle.asn1.ASN1Integer;
-import org.bouncycastle.asn1.DERIA5String;
-import org.bouncycastle.asn1.DERPrintableString;
 import org.bouncycastle.asn1.DERSequenceGenerator;
-import org.bouncycastle.asn1.DERUTF8String;
-import org.bouncycastle.asn1.x500.X500Name;
 import org.bouncycastle.asn1.x509.SubjectPublicKeyInfo;
-import org.bouncycastle.cert.jcajce.JcaX509CertificateHolder;
-import org.bouncycastle.crypto.EphemeralKeyPair;
-import org.bouncycastle.jce.provider.BouncyCastleProvider;
 import org.bouncycastle.openssl.PEMKeyPair;
 import org.bouncycastle.openssl.PEMParser;
 import org.bouncycastle.openssl.jcajce.JcaPEMKeyConverter;
-import sun.net.www.http.HttpClient;
 
-import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.StringReader;
@@ -26,14 +15,9 @@ import java.nio.ByteBuffer;
 import java.security.*;
 import java.security.cert.CertificateEncodingException;
 import java.security.cert.CertificateException;
-import java.security.cert.CertificateFactory;
 import java.security.cert.X509Certificate;
-import java.text.ParseException;
-import java.text.SimpleDateFormat;
-import java.util.AbstractMap;
-import java.util.Arrays;
 import java.util.Map;
-import java.util.stream.Collectors;
+import java.util.concurrent.TimeUnit;
 
 public class CryptoUtils {
 
@@ -46,6 +30,20 @@ public class CryptoUtils {
     public static final String CITIZENSHIP = "CountryOfCitizenship";
     public static final String DATE_FORMAT = "yyyy-MM-dd'T'HH:mm:ss.SSSZ";
 
+    private static final String SIGNATURE_ALGORITHM = "SHA256withECDSA";
+    private static final String DIGEST_ALGORITHM = "SHA-256";
+
+    private static final ThreadLocal<MessageDigest> DIGESTS = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance(DIGEST_ALGORITHM);
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException(e);
+        }
+    });
+    private static final SubjectExtractor SUBJECTS = new SubjectExtractor(1024);
+    private static final CertificateCache CERTIFICATES = new CertificateCache(1024, 1, TimeUnit.HOURS);
+    private static final SignedHashVerifier SIGNED_HASHES = new SignedHashVerifier(1024, 1, TimeUnit.HOURS);
+    private static final ThreadLocal<SignatureEngine> VERIFIERS = ThreadLocal.withInitial(SignatureEngine::new);
 
     public static SecureRandom newSecureRandom() throws NoSuchAlgorithmException {
         return SecureRandom.getInstance("NativePRNGNonBlocking");
@@ -77,37 +75,48 @@ public class CryptoUtils {
         return converter.getPublicKey((SubjectPublicKeyInfo) keyObject);
     }
 
+    /**
+     * Returns the subject attributes of the certificate, decoding each distinct certificate only once.
+     */
     public static Map<String, String> getSubjectData(X509Certificate certificate) throws CertificateEncodingException {
-        X500Name x500Name = new JcaX509CertificateHolder(certificate).getSubject();
-
-        return Arrays.stream(x500Name.getAttributeTypes()).map(x -> {
-            String key = EcStyle.INSTANCE.oidToDisplayName(x);
-            ASN1Encodable encodable = x500Name.getRDNs(x)[0].getFirst().getValue();
-            String value;
-
-            if (encodable instanceof ASN1GeneralizedTime) {
-                try {
-                    value = new SimpleDateFormat(DATE_FORMAT).format(((ASN1GeneralizedTime) encodable).getDate());
-                } catch (ParseException e) {
-                    e.printStackTrace();
-                    value = "";
-                }
-            } else if (encodable instanceof DERPrintableString) {
-                value = ((DERPrintableString) encodable).getString();
-            } else if (encodable instanceof DERIA5String) {
-                value = ((DERIA5String) encodable).getString();
-            } else if (encodable instanceof DERUTF8String) {
-                value = ((DERUTF8String) encodable).getString();
-            } else {
-                value = encodable.toString();
-            }
-            return new AbstractMap.SimpleEntry<>(key, value);
-        }).collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
+        return SUBJECTS.extract(certificate);
+    }
+
+    /**
+     * Returns the subject attributes of a DER encoded certificate, decoding each distinct
+     * certificate only once.
+     */
+    public static Map<String, String> getSubjectData(byte[] encodedCertificate) {
+        return SUBJECTS.extract(encodedCertificate);
     }
 
+    /**
+     * Decodes the certificate, reusing the certificate decoded earlier for the same bytes.
+     */
     public static X509Certificate decodeX509Certificate(byte[] encoded) throws CertificateException, NoSuchProviderException {
-        CertificateFactory factory = CertificateFactory.getInstance("X.509", BouncyCastleProvider.PROVIDER_NAME);
-        return (X509Certificate) factory.generateCertificate(new ByteArrayInputStream(encoded));
+        return CERTIFICATES.decode(encoded);
+    }
+
+    /**
+     * Cache behind {@link #decodeX509Certificate}, e.g. to read its hit rate.
+     */
+    public static CertificateCache getCertificateCache() {
+        return CERTIFICATES;
+    }
+
+    /**
+     * Verifies the user's signature of {@code hashToSign}, e.g. the {@code signed_hash} returned
+     * with an {@code OK} auth status, against the user's DER encoded certificate.
+     */
+    public static boolean verifySignedHash(byte[] hashToSign, byte[] certificate, byte[] signedHash) throws CertificateException, NoSuchProviderException, NoSuchAlgorithmException, InvalidKeyException, SignatureException {
+        return SIGNED_HASHES.verify(hashToSign, certificate, signedHash);
+    }
+
+    /**
+     * Verifier behind {@link #verifySignedHash}, e.g. to verify batches of signatures.
+     */
+    public static SignedHashVerifier getSignedHashVerifier() {
+        return SIGNED_HASHES;
     }
 
     public static String calculateVerificationCode(byte[] hash) {
@@ -123,24 +132,83 @@ public class CryptoUtils {
 
 
     public static byte[] sign(byte[] hash, PrivateKey privateKey) throws NoSuchAlgorithmException, InvalidKeyException, SignatureException {
-        Signature signer = Signature.getInstance("SHA256withECDSA");
-        signer.initSign(privateKey);
-        signer.update(hash);
-        return signer.sign();
+        Signature signature = newSigner(privateKey);
+        signature.update(hash);
+        return signature.sign();
+    }
+
+    /**
+     * Returns a new signature engine initialized with the key. Signing engines are not kept per
+     * thread, as they would keep the private key reachable from every thread that ever signed; a
+     * caller signing repeatedly with one key keeps its own engines and drops them with the key.
+     */
+    public static Signature newSigner(PrivateKey privateKey) throws NoSuchAlgorithmException, InvalidKeyException {
+        Signature signature = Signature.getInstance(SIGNATURE_ALGORITHM);
+        signature.initSign(privateKey);
+        return signature;
     }
 
     public static Boolean verify(byte[] hash, PublicKey publicKey, byte[] signature) throws NoSuchAlgorithmException, InvalidKeyException, SignatureException {
-        Signature signer = Signature.getInstance("SHA256withECDSA");
-        signer.initVerify(publicKey);
-        signer.update(hash);
-        return signer.verify(signature);
+        SignatureEngine verifier = VERIFIERS.get();
+        try {
+            Signature engine = verifier.forVerification(publicKey);
+            engine.update(hash);
+            return engine.verify(signature);
+        } catch (InvalidKeyException | SignatureException e) {
+            verifier.reset();
+            throw e;
+        }
     }
 
     public static byte[] sha256(byte[] data) {
-        try {
-            return MessageDigest.getInstance("SHA-256").digest(data);
-        } catch (NoSuchAlgorithmException e) {
-            throw new RuntimeException(e);
+        return DIGESTS.get().digest(data);
+    }
+
+    /**
+     * Returns this thread's SHA-256 digest for incremental hashing; it must be finished with
+     * {@code digest()} before returning control to other code on the same thread.
+     */
+    static MessageDigest sha256Digest() {
+        return DIGESTS.get();
+    }
+
+    public static byte[] sha256(byte[] data, int offset, int length) {
+        MessageDigest digest = DIGESTS.get();
+        digest.update(data, offset, length);
+        return digest.digest();
+    }
+
+    /**
+     * Per-thread verification {@link Signature} that is only re-initialized when it is used with a
+     * different key. A {@code Signature} returns to its initialized state after {@code verify()}, so
+     * consecutive verifications with the same key skip both the provider lookup and the key setup.
+     */
+    private static final class SignatureEngine {
+        private Signature signature;
+        private PublicKey key;
+
+        Signature forVerification(PublicKey publicKey) throws NoSuchAlgorithmException, InvalidKeyException {
+            Signature engine = engine();
+            if (!sameKey(publicKey)) {
+                key = null;
+                engine.initVerify(publicKey);
+                key = publicKey;
+            }
+            return engine;
+        }
+
+        void reset() {
+            signature = null;
+            key = null;
+        }
+
+        private Signature engine() throws NoSuchAlgorithmException {
+            if (signature == null) signature = Signature.getInstance(SIGNATURE_ALGORITHM);
+            return signature;
+        }
+
+        private boolean sameKey(PublicKey other) {
+            return key == other || (key != null && key.equals(other));
         }
     }
 }
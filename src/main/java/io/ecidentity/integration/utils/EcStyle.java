@@ -2,56 +2,133 @@ package io.ecidentity.integration.utils;
 
 import org.bouncycastle.asn1.*;
 import org.bouncycastle.asn1.pkcs.PKCSObjectIdentifiers;
+import org.bouncycastle.asn1.x500.AttributeTypeAndValue;
 import org.bouncycastle.asn1.x500.RDN;
 import org.bouncycastle.asn1.x500.X500Name;
 import org.bouncycastle.asn1.x500.X500NameStyle;
 import org.bouncycastle.asn1.x500.style.AbstractX500NameStyle;
 import org.bouncycastle.asn1.x500.style.IETFUtils;
-
-import java.util.Hashtable;
-
+import org.bouncycastle.util.Strings;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Name style of ECiDentity identity certificates.
+ * <p>
+ * Display names and attribute names of the fixed ECiDentity attributes are resolved with string
+ * switches, and the few remaining tables are built once and never modified, so lookups take no
+ * locks and instances share all their state.
+ */
 public class EcStyle extends AbstractX500NameStyle {
 
-    public static final ASN1ObjectIdentifier id = new ASN1ObjectIdentifier("1.3.6.1.4.1.50715.1.1").intern();
+    private static final String ID = "1.3.6.1.4.1.50715.1.1";
+    private static final String EMAIL_ADDRESS = "1.2.840.113549.1.9.1";
+    private static final String GIVEN_NAME = "2.5.4.42";
+    private static final String SURNAME = "2.5.4.4";
+    private static final String DATE_OF_BIRTH = "1.3.6.1.5.5.7.9.1";
+    private static final String PLACE_OF_BIRTH = "1.3.6.1.4.1.50715.1.17";
+    private static final String COUNTRY_OF_CITIZENSHIP = "1.3.6.1.5.5.7.9.4";
+    private static final String GENDER = "1.3.6.1.5.5.7.9.3";
+    private static final String DOCUMENT_NUMBER = "1.3.6.1.4.1.50715.1.16";
+    private static final String DATE_OF_EXPIRE = "1.3.6.1.4.1.50715.1.26";
+    private static final String DOCUMENT_CLASS = "1.3.6.1.4.1.50715.1.27";
+    private static final String DOCUMENT_COUNTRY = "1.3.6.1.4.1.50715.1.28";
+    private static final String PERSONAL_NUMBER = "1.3.6.1.4.1.50715.1.30";
+    private static final String PORTRAIT = "1.3.6.1.4.1.50715.1.6";
+    private static final String UNSTRUCTURED_NAME = "1.2.840.113549.1.9.2";
+    private static final String UNSTRUCTURED_ADDRESS = "1.2.840.113549.1.9.8";
+
+    public static final ASN1ObjectIdentifier id = new ASN1ObjectIdentifier(ID).intern();
     public static final ASN1ObjectIdentifier emailAddress = PKCSObjectIdentifiers.pkcs_9_at_emailAddress;
-    public static final ASN1ObjectIdentifier givenName = new ASN1ObjectIdentifier("2.5.4.42").intern();
-    public static final ASN1ObjectIdentifier surname = new ASN1ObjectIdentifier("2.5.4.4").intern();
-    public static final ASN1ObjectIdentifier dateOfBirth = new ASN1ObjectIdentifier("1.3.6.1.5.5.7.9.1").intern();
-    public static final ASN1ObjectIdentifier placeOfBirth = new ASN1ObjectIdentifier("1.3.6.1.4.1.50715.1.17").intern();
-    public static final ASN1ObjectIdentifier countryOfCitizenship = new ASN1ObjectIdentifier("1.3.6.1.5.5.7.9.4").intern();
-    public static final ASN1ObjectIdentifier gender = new ASN1ObjectIdentifier("1.3.6.1.5.5.7.9.3").intern();
-    public static final ASN1ObjectIdentifier documentNumber = new ASN1ObjectIdentifier("1.3.6.1.4.1.50715.1.16").intern();
-    public static final ASN1ObjectIdentifier dateOfExpire = new ASN1ObjectIdentifier("1.3.6.1.4.1.50715.1.26").intern();
-    public static final ASN1ObjectIdentifier documentClass = new ASN1ObjectIdentifier("1.3.6.1.4.1.50715.1.27").intern();
-    public static final ASN1ObjectIdentifier documentCountry = new ASN1ObjectIdentifier("1.3.6.1.4.1.50715.1.28").intern();
-    public static final ASN1ObjectIdentifier personalNumber = new ASN1ObjectIdentifier("1.3.6.1.4.1.50715.1.30").intern();
-    public static final ASN1ObjectIdentifier portrait = new ASN1ObjectIdentifier("1.3.6.1.4.1.50715.1.6").intern();
+    public static final ASN1ObjectIdentifier givenName = new ASN1ObjectIdentifier(GIVEN_NAME).intern();
+    public static final ASN1ObjectIdentifier surname = new ASN1ObjectIdentifier(SURNAME).intern();
+    public static final ASN1ObjectIdentifier dateOfBirth = new ASN1ObjectIdentifier(DATE_OF_BIRTH).intern();
+    public static final ASN1ObjectIdentifier placeOfBirth = new ASN1ObjectIdentifier(PLACE_OF_BIRTH).intern();
+    public static final ASN1ObjectIdentifier countryOfCitizenship = new ASN1ObjectIdentifier(COUNTRY_OF_CITIZENSHIP).intern();
+    public static final ASN1ObjectIdentifier gender = new ASN1ObjectIdentifier(GENDER).intern();
+    public static final ASN1ObjectIdentifier documentNumber = new ASN1ObjectIdentifier(DOCUMENT_NUMBER).intern();
+    public static final ASN1ObjectIdentifier dateOfExpire = new ASN1ObjectIdentifier(DATE_OF_EXPIRE).intern();
+    public static final ASN1ObjectIdentifier documentClass = new ASN1ObjectIdentifier(DOCUMENT_CLASS).intern();
+    public static final ASN1ObjectIdentifier documentCountry = new ASN1ObjectIdentifier(DOCUMENT_COUNTRY).intern();
+    public static final ASN1ObjectIdentifier personalNumber = new ASN1ObjectIdentifier(PERSONAL_NUMBER).intern();
+    public static final ASN1ObjectIdentifier portrait = new ASN1ObjectIdentifier(PORTRAIT).intern();
 
     public static final ASN1ObjectIdentifier unstructuredName = PKCSObjectIdentifiers.pkcs_9_at_unstructuredName;
     public static final ASN1ObjectIdentifier unstructuredAddress = PKCSObjectIdentifiers.pkcs_9_at_unstructuredAddress;
 
-    private static final Hashtable<ASN1ObjectIdentifier, String> DefaultSymbols;
-    private static final Hashtable<String, ASN1ObjectIdentifier> DefaultLookUp;
-    protected final Hashtable<ASN1ObjectIdentifier, String> defaultSymbols;
-    protected final Hashtable<String, ASN1ObjectIdentifier> defaultLookUp;
+    private static final String[] ATTR_NAMES = {
+            "id", "e", "emailaddress", "givenname", "surname", "dateofbirth", "placeofbirth",
+            "countryofcitizenship", "gender", "documentnumber", "dateofexpire", "documentclass",
+            "documentcountry", "personalnumber", "portrait", "unstructuredaddress", "unstructuredname"
+    };
+    private static final String[] NO_NAMES = new String[0];
+
+    private static final Map<ASN1ObjectIdentifier, String[]> AttrNames;
 
     public static final X500NameStyle INSTANCE;
 
     protected EcStyle() {
-        this.defaultSymbols = copyHashTable(DefaultSymbols);
-        this.defaultLookUp = copyHashTable(DefaultLookUp);
     }
 
     public String oidToDisplayName(ASN1ObjectIdentifier var1) {
-        return (String) DefaultSymbols.get(var1);
+        switch (var1.getId()) {
+            case ID:
+                return "Id";
+            case EMAIL_ADDRESS:
+                return "EmailAddress";
+            case GIVEN_NAME:
+                return "GivenName";
+            case SURNAME:
+                return "Surname";
+            case DATE_OF_BIRTH:
+                return "DateOfBirth";
+            case PLACE_OF_BIRTH:
+                return "PlaceOfBirth";
+            case COUNTRY_OF_CITIZENSHIP:
+                return "CountryOfCitizenship";
+            case GENDER:
+                return "Gender";
+            case DOCUMENT_NUMBER:
+                return "DocumentNumber";
+            case DATE_OF_EXPIRE:
+                return "DateOfExpire";
+            case DOCUMENT_CLASS:
+                return "DocumentClass";
+            case DOCUMENT_COUNTRY:
+                return "DocumentCountry";
+            case PERSONAL_NUMBER:
+                return "PersonalNumber";
+            case PORTRAIT:
+                return "Portrait";
+            case UNSTRUCTURED_ADDRESS:
+                return "UnstructuredName";
+            case UNSTRUCTURED_NAME:
+                return "UnstructuredAddress";
+            default:
+                return null;
+        }
     }
 
     public String[] oidToAttrNames(ASN1ObjectIdentifier var1) {
-        return IETFUtils.findAttrNamesForOID(var1, this.defaultLookUp);
+        String[] names = AttrNames.get(var1);
+        return names != null ? names.clone() : NO_NAMES;
     }
 
     public ASN1ObjectIdentifier attrNameToOID(String var1) {
-        return IETFUtils.decodeAttrName(var1, this.defaultLookUp);
+        if (var1.regionMatches(true, 0, "OID.", 0, 4)) {
+            return new ASN1ObjectIdentifier(var1.substring(4));
+        } else if (var1.charAt(0) >= '0' && var1.charAt(0) <= '9') {
+            return new ASN1ObjectIdentifier(var1);
+        }
+        ASN1ObjectIdentifier oid = lookUp(Strings.toLowerCase(var1));
+        if (oid == null) {
+            throw new IllegalArgumentException("Unknown object id - " + var1 + " - passed to distinguished name");
+        }
+        return oid;
     }
 
     public RDN[] fromString(String var1) {
@@ -59,63 +136,84 @@ public class EcStyle extends AbstractX500NameStyle {
     }
 
     public String toString(X500Name var1) {
-        StringBuffer var2 = new StringBuffer();
-        boolean var3 = true;
-        RDN[] var4 = var1.getRDNs();
-
-        for (RDN rdn : var4) {
-            if (var3) {
-                var3 = false;
-            } else {
-                var2.append(',');
-            }
+        StringBuilder builder = new StringBuilder(128);
+        RDN[] rdns = var1.getRDNs();
 
-            IETFUtils.appendRDN(var2, rdn, this.defaultSymbols);
+        for (int i = 0; i < rdns.length; i++) {
+            if (i > 0) builder.append(',');
+            appendRDN(builder, rdns[i]);
         }
 
-        return var2.toString();
+        return builder.toString();
+    }
+
+    private void appendRDN(StringBuilder builder, RDN rdn) {
+        if (rdn.isMultiValued()) {
+            AttributeTypeAndValue[] values = rdn.getTypesAndValues();
+            for (int i = 0; i < values.length; i++) {
+                if (i > 0) builder.append('+');
+                appendTypeAndValue(builder, values[i]);
+            }
+        } else if (rdn.getFirst() != null) {
+            appendTypeAndValue(builder, rdn.getFirst());
+        }
+    }
+
+    private void appendTypeAndValue(StringBuilder builder, AttributeTypeAndValue value) {
+        String symbol = oidToDisplayName(value.getType());
+        builder.append(symbol != null ? symbol : value.getType().getId())
+                .append('=')
+                .append(IETFUtils.valueToString(value.getValue()));
+    }
+
+    private static ASN1ObjectIdentifier lookUp(String name) {
+        switch (name) {
+            case "id":
+                return id;
+            case "e":
+            case "emailaddress":
+                return emailAddress;
+            case "givenname":
+                return givenName;
+            case "surname":
+                return surname;
+            case "dateofbirth":
+                return dateOfBirth;
+            case "placeofbirth":
+                return placeOfBirth;
+            case "countryofcitizenship":
+                return countryOfCitizenship;
+            case "gender":
+                return gender;
+            case "documentnumber":
+                return documentNumber;
+            case "dateofexpire":
+                return dateOfExpire;
+            case "documentclass":
+                return documentClass;
+            case "documentcountry":
+                return documentCountry;
+            case "personalnumber":
+                return personalNumber;
+            case "portrait":
+                return portrait;
+            case "unstructuredaddress":
+                return unstructuredAddress;
+            case "unstructuredname":
+                return unstructuredName;
+            default:
+                return null;
+        }
     }
 
     static {
-        DefaultSymbols = new Hashtable();
-        DefaultLookUp = new Hashtable();
-
-        DefaultLookUp.put("id", id);
-        DefaultLookUp.put("e", emailAddress);
-        DefaultLookUp.put("emailaddress", emailAddress);
-        DefaultLookUp.put("givenname", givenName);
-        DefaultLookUp.put("surname", surname);
-        DefaultLookUp.put("dateofbirth", dateOfBirth);
-        DefaultLookUp.put("placeofbirth", placeOfBirth);
-        DefaultLookUp.put("countryofcitizenship", countryOfCitizenship);
-        DefaultLookUp.put("gender", gender);
-        DefaultLookUp.put("documentnumber", documentNumber);
-        DefaultLookUp.put("dateofexpire", dateOfExpire);
-        DefaultLookUp.put("documentclass", documentClass);
-        DefaultLookUp.put("documentcountry", documentCountry);
-        DefaultLookUp.put("personalnumber", personalNumber);
-        DefaultLookUp.put("portrait", portrait);
-
-        DefaultLookUp.put("unstructuredaddress", unstructuredAddress);
-        DefaultLookUp.put("unstructuredname", unstructuredName);
-
-        DefaultSymbols.put(id, "Id");
-        DefaultSymbols.put(emailAddress, "EmailAddress");
-        DefaultSymbols.put(givenName, "GivenName");
-        DefaultSymbols.put(surname, "Surname");
-        DefaultSymbols.put(dateOfBirth, "DateOfBirth");
-        DefaultSymbols.put(placeOfBirth, "PlaceOfBirth");
-        DefaultSymbols.put(countryOfCitizenship, "CountryOfCitizenship");
-        DefaultSymbols.put(gender, "Gender");
-        DefaultSymbols.put(documentNumber, "DocumentNumber");
-        DefaultSymbols.put(dateOfExpire, "DateOfExpire");
-        DefaultSymbols.put(documentClass, "DocumentClass");
-        DefaultSymbols.put(documentCountry, "DocumentCountry");
-        DefaultSymbols.put(personalNumber, "PersonalNumber");
-        DefaultSymbols.put(portrait, "Portrait");
-
-        DefaultSymbols.put(unstructuredAddress, "UnstructuredName");
-        DefaultSymbols.put(unstructuredName, "UnstructuredAddress");
+        Map<ASN1ObjectIdentifier, List<String>> names = new HashMap<>();
+        for (String name : ATTR_NAMES) {
+            names.computeIfAbsent(lookUp(name), oid -> new ArrayList<>()).add(name);
+        }
+        Map<ASN1ObjectIdentifier, String[]> attrNames = new HashMap<>();
+        names.forEach((oid, list) -> attrNames.put(oid, list.toArray(new String[0])));
+        AttrNames = Collections.unmodifiableMap(attrNames);
 
         INSTANCE = new EcStyle();
     }
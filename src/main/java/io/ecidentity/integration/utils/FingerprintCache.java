@@ -0,0 +1,20 @@
+package io.ecidentity.integration.utils;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bounded cache of values derived from DER encodings, keyed by the SHA-256 fingerprint of the
+ * encoding. Eviction and expiry are those of {@link ClockCache}; callers derive values outside of
+ * the cache and put them after a miss.
+ */
+final class FingerprintCache<V> extends ClockCache<ByteBuffer, V> {
+
+    FingerprintCache(int maxEntries, long ttl, TimeUnit unit) {
+        super(maxEntries, ttl, unit);
+    }
+
+    static ByteBuffer fingerprint(byte[] encoded) {
+        return ByteBuffer.wrap(CryptoUtils.sha256(encoded));
+    }
+}
@@ -0,0 +1,71 @@
+package io.ecidentity.integration.utils;
+
+import java.security.InvalidKeyException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.PublicKey;
+import java.security.SignatureException;
+
+/**
+ * Inclusion proof of one document hash in a {@link MerkleTree}. It can be stored next to the
+ * document and checked offline against the signed root.
+ */
+public final class MerkleProof {
+
+    private final int index;
+    private final int leafCount;
+    private final byte[][] siblings;
+
+    public MerkleProof(int index, int leafCount, byte[][] siblings) {
+        this.index = index;
+        this.leafCount = leafCount;
+        this.siblings = siblings;
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public int getLeafCount() {
+        return leafCount;
+    }
+
+    public byte[][] getSiblings() {
+        return siblings;
+    }
+
+    /**
+     * Recomputes the root from the document hash, or returns {@code null} if the proof is malformed.
+     */
+    public byte[] computeRoot(byte[] documentHash) {
+        if (index < 0 || index >= leafCount) return null;
+        byte[] node = MerkleTree.leaf(documentHash);
+        int position = index;
+        int size = leafCount;
+        int used = 0;
+        while (size > 1) {
+            if ((position & 1) == 1) {
+                if (used == siblings.length) return null;
+                node = MerkleTree.node(siblings[used++], node);
+            } else if (position + 1 < size) {
+                if (used == siblings.length) return null;
+                node = MerkleTree.node(node, siblings[used++]);
+            }
+            position >>= 1;
+            size = (size + 1) / 2;
+        }
+        return used == siblings.length ? node : null;
+    }
+
+    public boolean verify(byte[] documentHash, byte[] root) {
+        byte[] computed = computeRoot(documentHash);
+        return computed != null && MessageDigest.isEqual(computed, root);
+    }
+
+    /**
+     * Checks that the document is part of the batch and that the root was signed with the given key.
+     */
+    public boolean verify(byte[] documentHash, byte[] root, byte[] signedRoot, PublicKey publicKey) throws NoSuchAlgorithmException, InvalidKeyException, SignatureException {
+        return verify(documentHash, root) && CryptoUtils.verify(root, publicKey, signedRoot);
+    }
+}
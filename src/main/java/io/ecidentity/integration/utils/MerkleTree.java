@@ -0,0 +1,91 @@
+package io.ecidentity.integration.utils;
+
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * SHA-256 Merkle tree over document hashes, used to have a single signature cover a batch.
+ * <p>
+ * Leaves and inner nodes are hashed with distinct prefixes ({@code 0x00} and {@code 0x01}) so a
+ * node can never be passed off as a leaf. A node without a sibling is promoted to the next level
+ * unchanged. Levels with many nodes are hashed in parallel.
+ */
+public final class MerkleTree {
+
+    private static final byte LEAF_PREFIX = 0x00;
+    private static final byte NODE_PREFIX = 0x01;
+    private static final int PARALLEL_THRESHOLD = 4096;
+
+    private final byte[][][] levels;
+
+    private MerkleTree(byte[][][] levels) {
+        this.levels = levels;
+    }
+
+    public static MerkleTree build(List<byte[]> hashes) {
+        if (hashes.isEmpty()) throw new IllegalArgumentException("At least one hash is required");
+        byte[][] level = new byte[hashes.size()][];
+        indexes(level.length).forEach(i -> level[i] = leaf(hashes.get(i)));
+
+        List<byte[][]> levels = new ArrayList<>();
+        levels.add(level);
+        byte[][] current = level;
+        while (current.length > 1) {
+            current = parents(current);
+            levels.add(current);
+        }
+        return new MerkleTree(levels.toArray(new byte[0][][]));
+    }
+
+    public byte[] getRoot() {
+        return levels[levels.length - 1][0].clone();
+    }
+
+    public int size() {
+        return levels[0].length;
+    }
+
+    public MerkleProof getProof(int index) {
+        if (index < 0 || index >= size()) throw new IndexOutOfBoundsException("Index: " + index + ", size: " + size());
+        List<byte[]> siblings = new ArrayList<>(levels.length);
+        int position = index;
+        for (int level = 0; level < levels.length - 1; level++) {
+            int sibling = position ^ 1;
+            if (sibling < levels[level].length) siblings.add(levels[level][sibling].clone());
+            position >>= 1;
+        }
+        return new MerkleProof(index, size(), siblings.toArray(new byte[0][]));
+    }
+
+    private static byte[][] parents(byte[][] level) {
+        byte[][] parents = new byte[(level.length + 1) / 2][];
+        indexes(parents.length).forEach(i -> {
+            int left = 2 * i;
+            parents[i] = left + 1 < level.length ? node(level[left], level[left + 1]) : level[left];
+        });
+        return parents;
+    }
+
+    private static IntStream indexes(int size) {
+        IntStream indexes = IntStream.range(0, size);
+        return size >= PARALLEL_THRESHOLD ? indexes.parallel() : indexes;
+    }
+
+    static byte[] leaf(byte[] hash) {
+        if (hash == null) throw new IllegalArgumentException("Hash must not be null");
+        MessageDigest digest = CryptoUtils.sha256Digest();
+        digest.update(LEAF_PREFIX);
+        digest.update(hash);
+        return digest.digest();
+    }
+
+    static byte[] node(byte[] left, byte[] right) {
+        MessageDigest digest = CryptoUtils.sha256Digest();
+        digest.update(NODE_PREFIX);
+        digest.update(left);
+        digest.update(right);
+        return digest.digest();
+    }
+}
@@ -3,9 +3,12 @@ package io.ecidentity.integration.utils;
 import com.google.protobuf.AbstractMessage;
 import com.google.protobuf.ByteString;
 import com.google.protobuf.Descriptors;
+import com.google.protobuf.UnknownFieldSet;
 import io.ecidentity.protocol.types.ResultCodeExtProtocol;
 
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class MessageUtils {
 
@@ -13,26 +16,72 @@ public class MessageUtils {
     private static final String SIGNATURE = "signature";
     private static final String RESULT_CODE = "result_code";
 
+    /**
+     * Field number under which the client attaches the SHA-256 digest of the payload bytes as received
+     * on the wire. It is the highest valid field number and is never used by the protocol.
+     */
+    public static final int PAYLOAD_DIGEST_FIELD = 536870911;
+
+    /**
+     * Field number under which the client attaches the signed payload bytes to a request envelope.
+     * The request marshaller writes them as the payload field and never sends this field itself.
+     */
+    public static final int ENCODED_PAYLOAD_FIELD = 536870910;
+
+    private static final Map<Class<?>, Accessors> ACCESSORS = new ConcurrentHashMap<>();
+
     public static AbstractMessage getPayload(AbstractMessage message) {
-        return (AbstractMessage) getFieldValue(message, PAYLOAD);
+        Descriptors.FieldDescriptor field = accessors(message).payload;
+        if (field == null || !message.hasField(field)) return null;
+        return (AbstractMessage) message.getField(field);
     }
 
     public static ResultCodeExtProtocol getResultCode(AbstractMessage message) {
-        if (getFieldValue(message, RESULT_CODE) != null)
-            return ResultCodeExtProtocol.valueOf((Descriptors.EnumValueDescriptor) getFieldValue(message, RESULT_CODE));
-        else return ResultCodeExtProtocol.OK;
+        Descriptors.FieldDescriptor field = accessors(message).resultCode;
+        if (field == null) return ResultCodeExtProtocol.OK;
+        return ResultCodeExtProtocol.valueOf((Descriptors.EnumValueDescriptor) message.getField(field));
     }
 
     public static ByteString getSignature(AbstractMessage message) {
-        return (ByteString) getFieldValue(message, SIGNATURE);
+        Descriptors.FieldDescriptor field = accessors(message).signature;
+        if (field == null) return null;
+        return (ByteString) message.getField(field);
+    }
+
+    /**
+     * Returns the digest of the payload as it was received, or {@code null} if the message was not
+     * parsed by the client's capturing marshaller.
+     */
+    public static byte[] getPayloadDigest(AbstractMessage message) {
+        UnknownFieldSet unknownFields = message.getUnknownFields();
+        if (!unknownFields.hasField(PAYLOAD_DIGEST_FIELD)) return null;
+        List<ByteString> values = unknownFields.getField(PAYLOAD_DIGEST_FIELD).getLengthDelimitedList();
+        return values.isEmpty() ? null : values.get(values.size() - 1).toByteArray();
+    }
+
+    /**
+     * Returns the field descriptors of the envelope fields for the message type, resolving them
+     * from the {@link Descriptors.Descriptor} on first use only.
+     */
+    private static Accessors accessors(AbstractMessage message) {
+        Accessors accessors = ACCESSORS.get(message.getClass());
+        if (accessors == null) {
+            accessors = new Accessors(message.getDescriptorForType());
+            Accessors previous = ACCESSORS.putIfAbsent(message.getClass(), accessors);
+            if (previous != null) accessors = previous;
+        }
+        return accessors;
     }
 
-    private static Object getFieldValue(AbstractMessage message, String fieldName) {
-        return message.getAllFields()
-                .entrySet()
-                .stream()
-                .filter(entry -> entry.getKey().getName().equals(fieldName))
-                .findFirst()
-                .map(Map.Entry::getValue).orElse(null);
+    private static final class Accessors {
+        private final Descriptors.FieldDescriptor payload;
+        private final Descriptors.FieldDescriptor signature;
+        private final Descriptors.FieldDescriptor resultCode;
+
+        private Accessors(Descriptors.Descriptor descriptor) {
+            this.payload = descriptor.findFieldByName(PAYLOAD);
+            this.signature = descriptor.findFieldByName(SIGNATURE);
+            this.resultCode = descriptor.findFieldByName(RESULT_CODE);
+        }
     }
 }
@@ -0,0 +1,63 @@
+package io.ecidentity.integration.utils;
+
+import org.bouncycastle.asn1.ASN1Encodable;
+import org.bouncycastle.asn1.ASN1Encoding;
+import org.bouncycastle.asn1.ASN1Integer;
+import org.bouncycastle.asn1.DERSequence;
+import org.bouncycastle.crypto.digests.SHA256Digest;
+import org.bouncycastle.crypto.params.AsymmetricKeyParameter;
+import org.bouncycastle.crypto.params.ECPrivateKeyParameters;
+import org.bouncycastle.crypto.signers.ECDSASigner;
+import org.bouncycastle.crypto.signers.HMacDSAKCalculator;
+import org.bouncycastle.jcajce.provider.asymmetric.util.ECUtil;
+import org.bouncycastle.math.ec.FixedPointUtil;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.security.InvalidKeyException;
+import java.security.PrivateKey;
+import java.security.SignatureException;
+
+/**
+ * Signs hashes with one long-lived EC private key, producing the same {@code SHA256withECDSA}
+ * signatures as {@link CryptoUtils#sign} but with BouncyCastle's low-level EC API.
+ * <p>
+ * The fixed-base comb table of the curve generator is computed once when the signer is created, so
+ * every signature only does the table lookups of a comb multiplication. Nonces are derived
+ * deterministically from the key and the message as in RFC 6979, and every thread keeps a signer
+ * initialized with the key, so signing needs neither a random source nor any setup.
+ */
+public final class PrecomputedSigner {
+
+    private final ECPrivateKeyParameters key;
+    private final ThreadLocal<ECDSASigner> signers;
+
+    /**
+     * @throws InvalidKeyException if the key is not an EC key whose scalar can be read, e.g. a key
+     *                             held by a hardware token
+     */
+    public PrecomputedSigner(PrivateKey privateKey) throws InvalidKeyException {
+        AsymmetricKeyParameter parameter = ECUtil.generatePrivateKeyParameter(privateKey);
+        if (!(parameter instanceof ECPrivateKeyParameters)) throw new InvalidKeyException("EC private key expected");
+        this.key = (ECPrivateKeyParameters) parameter;
+        FixedPointUtil.precompute(key.getParameters().getG());
+        this.signers = ThreadLocal.withInitial(() -> {
+            ECDSASigner signer = new ECDSASigner(new HMacDSAKCalculator(new SHA256Digest()));
+            signer.init(true, key);
+            return signer;
+        });
+    }
+
+    /**
+     * Returns the DER encoded signature of the SHA-256 digest of {@code hash}.
+     */
+    public byte[] sign(byte[] hash) throws SignatureException {
+        BigInteger[] signature = signers.get().generateSignature(CryptoUtils.sha256(hash));
+        try {
+            return new DERSequence(new ASN1Encodable[]{new ASN1Integer(signature[0]), new ASN1Integer(signature[1])})
+                    .getEncoded(ASN1Encoding.DER);
+        } catch (IOException e) {
+            throw new SignatureException("Unable to encode signature", e);
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package io.ecidentity.integration.utils;
+
+import org.bouncycastle.asn1.ASN1Encoding;
+import org.bouncycastle.asn1.ASN1Integer;
+import org.bouncycastle.asn1.ASN1Primitive;
+import org.bouncycastle.asn1.ASN1Sequence;
+import org.bouncycastle.crypto.params.AsymmetricKeyParameter;
+import org.bouncycastle.crypto.params.ECPublicKeyParameters;
+import org.bouncycastle.crypto.signers.ECDSASigner;
+import org.bouncycastle.jcajce.provider.asymmetric.util.ECUtil;
+import org.bouncycastle.math.ec.WNafUtil;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.security.InvalidKeyException;
+import java.security.PublicKey;
+import java.security.SignatureException;
+import java.util.Arrays;
+
+/**
+ * Verifies {@code SHA256withECDSA} signatures made with one EC public key, accepting the same
+ * signatures as {@link CryptoUtils#verify} but with BouncyCastle's low-level EC API.
+ * <p>
+ * The public point is decoded once and the WNAF tables of the point and of the curve generator are
+ * computed when the verifier is created. BouncyCastle keeps the tables on the point objects, so
+ * every verification only runs the interleaved multiplication. Meant for a key that verifies many
+ * messages, such as the authority key, which only changes when its certificate is rotated.
+ */
+public final class PrecomputedVerifier {
+
+    private final ECPublicKeyParameters key;
+    private final ThreadLocal<ECDSASigner> verifiers;
+
+    /**
+     * @throws InvalidKeyException if the key is not an EC key
+     */
+    public PrecomputedVerifier(PublicKey publicKey) throws InvalidKeyException {
+        AsymmetricKeyParameter parameter = ECUtil.generatePublicKeyParameter(publicKey);
+        if (!(parameter instanceof ECPublicKeyParameters)) throw new InvalidKeyException("EC public key expected");
+        this.key = (ECPublicKeyParameters) parameter;
+        int width = Math.max(2, Math.min(16, WNafUtil.getWindowSize(key.getParameters().getN().bitLength())));
+        WNafUtil.precompute(key.getParameters().getG(), width, true);
+        WNafUtil.precompute(key.getQ(), width, true);
+        this.verifiers = ThreadLocal.withInitial(() -> {
+            ECDSASigner verifier = new ECDSASigner();
+            verifier.init(false, key);
+            return verifier;
+        });
+    }
+
+    /**
+     * Returns whether {@code signature} is the DER encoded signature of the SHA-256 digest of {@code hash}.
+     *
+     * @throws SignatureException if the signature is not a DER encoded pair of integers
+     */
+    public boolean verify(byte[] hash, byte[] signature) throws SignatureException {
+        BigInteger[] rs = decode(signature);
+        return verifiers.get().verifySignature(CryptoUtils.sha256(hash), rs[0], rs[1]);
+    }
+
+    private static BigInteger[] decode(byte[] signature) throws SignatureException {
+        try {
+            ASN1Sequence sequence = ASN1Sequence.getInstance(ASN1Primitive.fromByteArray(signature));
+            if (sequence.size() == 2) {
+                BigInteger r = ASN1Integer.getInstance(sequence.getObjectAt(0)).getValue();
+                BigInteger s = ASN1Integer.getInstance(sequence.getObjectAt(1)).getValue();
+                if (Arrays.equals(sequence.getEncoded(ASN1Encoding.DER), signature)) return new BigInteger[]{r, s};
+            }
+        } catch (IOException | IllegalArgumentException e) {
+            throw new SignatureException("Malformed signature", e);
+        }
+        throw new SignatureException("Malformed signature");
+    }
+}
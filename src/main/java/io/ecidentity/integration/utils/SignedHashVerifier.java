@@ -0,0 +1,137 @@
+package io.ecidentity.integration.utils;
+
+import io.ecidentity.protocol.authority.AuthStatusResponsePayload;
+
+import java.nio.ByteBuffer;
+import java.security.InvalidKeyException;
+import java.security.NoSuchAlgorithmException;
+import java.security.NoSuchProviderException;
+import java.security.PublicKey;
+import java.security.SignatureException;
+import java.security.cert.CertificateException;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/**
+ * Verifies that the user's signature returned by the authority matches the hash that was sent to
+ * be signed, e.g. {@code signed_hash} of an {@code OK} auth status against its {@code certificate}.
+ * <p>
+ * Public keys are decoded once per certificate and kept by the SHA-256 fingerprint of its
+ * encoding, so verifying for a returning user only hashes the certificate. Only the signature is
+ * checked; the certificate itself is vouched for by the signed response it arrived in.
+ */
+public final class SignedHashVerifier {
+
+    /**
+     * A hash sent to be signed, the certificate of the signing user and the returned signature.
+     */
+    public static final class SignedHash {
+        private final byte[] hashToSign;
+        private final byte[] certificate;
+        private final byte[] signedHash;
+
+        public SignedHash(byte[] hashToSign, byte[] certificate, byte[] signedHash) {
+            this.hashToSign = hashToSign;
+            this.certificate = certificate;
+            this.signedHash = signedHash;
+        }
+
+        public static SignedHash of(byte[] hashToSign, AuthStatusResponsePayload payload) {
+            return new SignedHash(hashToSign, payload.getCertificate().toByteArray(), payload.getSignedHash().toByteArray());
+        }
+
+        public byte[] getHashToSign() {
+            return hashToSign;
+        }
+
+        public byte[] getCertificate() {
+            return certificate;
+        }
+
+        public byte[] getSignedHash() {
+            return signedHash;
+        }
+    }
+
+    private final FingerprintCache<PublicKey> keys;
+
+    /**
+     * @param ttl time to live of a cached key, or 0 to keep keys until they are evicted
+     */
+    public SignedHashVerifier(int maxEntries, long ttl, TimeUnit unit) {
+        this.keys = new FingerprintCache<>(maxEntries, ttl, unit);
+    }
+
+    public boolean verify(byte[] hashToSign, byte[] certificate, byte[] signedHash) throws CertificateException, NoSuchProviderException, NoSuchAlgorithmException, InvalidKeyException, SignatureException {
+        return CryptoUtils.verify(hashToSign, publicKey(certificate), signedHash);
+    }
+
+    public boolean verify(byte[] hashToSign, AuthStatusResponsePayload payload) throws CertificateException, NoSuchProviderException, NoSuchAlgorithmException, InvalidKeyException, SignatureException {
+        return verify(hashToSign, payload.getCertificate().toByteArray(), payload.getSignedHash().toByteArray());
+    }
+
+    public boolean verify(SignedHash signedHash) throws CertificateException, NoSuchProviderException, NoSuchAlgorithmException, InvalidKeyException, SignatureException {
+        return verify(signedHash.hashToSign, signedHash.certificate, signedHash.signedHash);
+    }
+
+    /**
+     * Verifies the signatures in parallel on the common fork-join pool. The key of each distinct
+     * certificate array is looked up once before the signatures are checked, so a batch signed by
+     * one user shares a single key. An entry whose certificate or signature cannot be decoded is
+     * reported as invalid.
+     *
+     * @return whether each signature is valid, in the order of {@code signedHashes}
+     */
+    public boolean[] verifyAll(List<SignedHash> signedHashes) {
+        PublicKey[] publicKeys = new PublicKey[signedHashes.size()];
+        Map<byte[], PublicKey> byCertificate = new IdentityHashMap<>();
+        for (int i = 0; i < publicKeys.length; i++) {
+            byte[] certificate = signedHashes.get(i).certificate;
+            if (!byCertificate.containsKey(certificate)) byCertificate.put(certificate, publicKeyOrNull(certificate));
+            publicKeys[i] = byCertificate.get(certificate);
+        }
+
+        boolean[] valid = new boolean[publicKeys.length];
+        IntStream.range(0, publicKeys.length).parallel().forEach(i -> {
+            SignedHash signedHash = signedHashes.get(i);
+            try {
+                valid[i] = publicKeys[i] != null && CryptoUtils.verify(signedHash.hashToSign, publicKeys[i], signedHash.signedHash);
+            } catch (NoSuchAlgorithmException | InvalidKeyException | SignatureException e) {
+                valid[i] = false;
+            }
+        });
+        return valid;
+    }
+
+    /**
+     * Returns the public key of a DER encoded certificate, decoding each distinct certificate only once.
+     */
+    public PublicKey publicKey(byte[] certificate) throws CertificateException, NoSuchProviderException {
+        ByteBuffer fingerprint = FingerprintCache.fingerprint(certificate);
+        PublicKey publicKey = keys.get(fingerprint);
+        return publicKey != null ? publicKey : keys.put(fingerprint, CryptoUtils.decodeX509Certificate(certificate).getPublicKey());
+    }
+
+    public int size() {
+        return keys.size();
+    }
+
+    public long getHitCount() {
+        return keys.getHitCount();
+    }
+
+    public long getMissCount() {
+        return keys.getMissCount();
+    }
+
+    private PublicKey publicKeyOrNull(byte[] certificate) {
+        try {
+            return publicKey(certificate);
+        } catch (CertificateException | NoSuchProviderException | RuntimeException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,225 @@
+package io.ecidentity.integration.utils;
+
+import org.bouncycastle.asn1.ASN1Encodable;
+import org.bouncycastle.asn1.ASN1GeneralizedTime;
+import org.bouncycastle.asn1.ASN1ObjectIdentifier;
+import org.bouncycastle.asn1.ASN1String;
+import org.bouncycastle.asn1.x500.AttributeTypeAndValue;
+import org.bouncycastle.asn1.x500.RDN;
+import org.bouncycastle.asn1.x500.X500Name;
+import org.bouncycastle.asn1.x509.Certificate;
+
+import java.nio.ByteBuffer;
+import java.security.cert.CertificateEncodingException;
+import java.security.cert.X509Certificate;
+import java.text.ParseException;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Extracts the subject attributes of identity certificates, keyed by their {@link EcStyle} display
+ * names.
+ * <p>
+ * Results are cached by the SHA-256 fingerprint of the certificate, so the subject of a certificate
+ * that is seen again, e.g. the certificate of a returning user, is decoded only once. The cache
+ * holds a bounded number of certificates and evicts roughly the least recently used one when full,
+ * without locking on hits.
+ * <p>
+ * Some providers, BouncyCastle among them, re-encode a certificate each time its encoding is
+ * requested, which costs more than decoding the subject. Recently seen certificate objects are
+ * therefore also remembered by identity, so passing the same object again skips the fingerprint.
+ */
+public final class SubjectExtractor {
+
+    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern(CryptoUtils.DATE_FORMAT);
+
+    private final FingerprintCache<Map<String, String>> cache;
+    private final ClockCache<Instance, ByteBuffer> instances;
+
+    public SubjectExtractor(int maxEntries) {
+        this.cache = new FingerprintCache<>(maxEntries, 0, TimeUnit.NANOSECONDS);
+        this.instances = new ClockCache<>(maxEntries, 0, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Returns the subject attributes of the certificate as an immutable map, decoding them only if
+     * the certificate is not cached.
+     */
+    public Map<String, String> extract(X509Certificate certificate) throws CertificateEncodingException {
+        Instance instance = new Instance(certificate);
+        ByteBuffer fingerprint = instances.get(instance);
+        Map<String, String> subject = fingerprint != null ? cache.get(fingerprint) : null;
+        if (subject != null) return subject;
+        if (fingerprint == null) {
+            fingerprint = FingerprintCache.fingerprint(certificate.getEncoded());
+            subject = cache.get(fingerprint);
+        }
+        if (subject == null) subject = cache.put(fingerprint, decode(certificate));
+        instances.put(instance, fingerprint);
+        return subject;
+    }
+
+    /**
+     * Same as {@link #extract(X509Certificate)} for a DER encoded certificate, e.g. as received from
+     * the authority. A cached subject is returned without decoding the certificate at all, which
+     * also saves re-encoding certificates whose provider does not keep their encoding.
+     */
+    public Map<String, String> extract(byte[] encoded) {
+        ByteBuffer fingerprint = FingerprintCache.fingerprint(encoded);
+        Map<String, String> subject = cache.get(fingerprint);
+        return subject != null ? subject : cache.put(fingerprint, decode(Certificate.getInstance(encoded).getSubject()));
+    }
+
+    /**
+     * Number of certificates currently cached.
+     */
+    public int size() {
+        return cache.size();
+    }
+
+    /**
+     * Decodes the subject attributes of the certificate without caching. Generalized times are
+     * formatted with {@link CryptoUtils#DATE_FORMAT} in the default time zone; a time that cannot be
+     * parsed is returned as it is encoded. Only the first value of a repeated attribute is kept.
+     */
+    public static Map<String, String> decode(X509Certificate certificate) {
+        return decode(X500Name.getInstance(certificate.getSubjectX500Principal().getEncoded()));
+    }
+
+    private static Map<String, String> decode(X500Name name) {
+        RDN[] rdns = name.getRDNs();
+        String[] keys = new String[rdns.length];
+        String[] values = new String[rdns.length];
+        int size = 0;
+        for (RDN rdn : rdns) {
+            for (AttributeTypeAndValue attribute : rdn.getTypesAndValues()) {
+                String key = displayName(attribute.getType());
+                if (indexOf(keys, size, key) >= 0) continue;
+                keys[size] = key;
+                values[size] = value(attribute.getValue());
+                if (++size == keys.length) {
+                    keys = Arrays.copyOf(keys, size * 2);
+                    values = Arrays.copyOf(values, size * 2);
+                }
+            }
+        }
+        return new SubjectMap(keys, values, size);
+    }
+
+    private static String displayName(ASN1ObjectIdentifier type) {
+        String key = EcStyle.INSTANCE.oidToDisplayName(type);
+        return key != null ? key : type.getId();
+    }
+
+    private static String value(ASN1Encodable encodable) {
+        if (encodable instanceof ASN1GeneralizedTime) {
+            ASN1GeneralizedTime time = (ASN1GeneralizedTime) encodable;
+            try {
+                return DATE_FORMATTER.format(time.getDate().toInstant().atZone(ZoneId.systemDefault()));
+            } catch (ParseException e) {
+                return time.getTimeString();
+            }
+        }
+        if (encodable instanceof ASN1String) return ((ASN1String) encodable).getString();
+        return encodable.toString();
+    }
+
+    private static int indexOf(String[] keys, int size, String key) {
+        for (int i = 0; i < size; i++) if (keys[i].equals(key)) return i;
+        return -1;
+    }
+
+    private static final class Instance {
+        private final X509Certificate certificate;
+
+        private Instance(X509Certificate certificate) {
+            this.certificate = certificate;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof Instance && ((Instance) other).certificate == certificate;
+        }
+
+        @Override
+        public int hashCode() {
+            return System.identityHashCode(certificate);
+        }
+    }
+
+    /**
+     * Immutable map backed by two arrays. Subjects have a handful of attributes, for which a linear
+     * scan is cheaper than hashing.
+     */
+    private static final class SubjectMap extends AbstractMap<String, String> {
+        private final String[] keys;
+        private final String[] values;
+        private final int size;
+        private Set<Entry<String, String>> entries;
+
+        private SubjectMap(String[] keys, String[] values, int size) {
+            this.keys = keys;
+            this.values = values;
+            this.size = size;
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return key instanceof String && indexOf(keys, size, (String) key) >= 0;
+        }
+
+        @Override
+        public String get(Object key) {
+            if (!(key instanceof String)) return null;
+            int index = indexOf(keys, size, (String) key);
+            return index >= 0 ? values[index] : null;
+        }
+
+        @Override
+        public Set<Entry<String, String>> entrySet() {
+            Set<Entry<String, String>> set = entries;
+            if (set == null) {
+                set = new AbstractSet<Entry<String, String>>() {
+                    @Override
+                    public Iterator<Entry<String, String>> iterator() {
+                        return new Iterator<Entry<String, String>>() {
+                            private int next;
+
+                            @Override
+                            public boolean hasNext() {
+                                return next < size;
+                            }
+
+                            @Override
+                            public Entry<String, String> next() {
+                                if (next >= size) throw new NoSuchElementException();
+                                int index = next++;
+                                return new SimpleImmutableEntry<>(keys[index], values[index]);
+                            }
+                        };
+                    }
+
+                    @Override
+                    public int size() {
+                        return size;
+                    }
+                };
+                entries = set;
+            }
+            return set;
+        }
+    }
+}
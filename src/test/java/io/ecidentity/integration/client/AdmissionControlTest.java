@@ -0,0 +1,104 @@
+package io.ecidentity.integration.client;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class AdmissionControlTest {
+
+    private static final String ACCESS_KEY = "key";
+
+    private static final class Recorder implements ResponseListener<String> {
+        private final List<Object> signals = new ArrayList<>();
+
+        @Override
+        public void onNext(String payload) {
+            signals.add(payload);
+        }
+
+        @Override
+        public void onError(Throwable error) {
+            signals.add(error);
+        }
+
+        @Override
+        public void onCompleted() {
+            signals.add("completed");
+        }
+    }
+
+    private static ResponseCall admit(AdmissionControl admission, Recorder recorder, List<ResponseListener<String>> started) {
+        return admission.admit(ACCESS_KEY, recorder, listener -> {
+            started.add(listener);
+            return ResponseCall.FAILED;
+        });
+    }
+
+    @Test
+    public void testFailFastWhenInFlightLimitReached() {
+        AdmissionControl admission = new AdmissionControl.Builder().withMaxInFlight(1).build();
+        List<ResponseListener<String>> started = new ArrayList<>();
+        Recorder first = new Recorder();
+        Recorder second = new Recorder();
+
+        admit(admission, first, started);
+        admit(admission, second, started);
+
+        assertEquals(1, started.size());
+        assertEquals(1, admission.getInFlight(ACCESS_KEY));
+        assertTrue(second.signals.get(0) instanceof RejectedExecutionException);
+
+        started.get(0).onCompleted();
+        assertEquals(0, admission.getInFlight(ACCESS_KEY));
+    }
+
+    @Test
+    public void testWaitingCallStartsOnRelease() {
+        AdmissionControl admission = new AdmissionControl.Builder()
+                .withMaxInFlight(1)
+                .withMaxWait(1, TimeUnit.MINUTES)
+                .build();
+        List<ResponseListener<String>> started = new ArrayList<>();
+        Recorder first = new Recorder();
+        Recorder second = new Recorder();
+        Recorder third = new Recorder();
+
+        admit(admission, first, started);
+        admit(admission, second, started);
+        admit(admission, third, started).cancel();
+
+        assertEquals(1, started.size());
+        assertEquals(1, admission.getWaiting(ACCESS_KEY));
+
+        started.get(0).onNext("OK");
+        started.get(0).onCompleted();
+
+        assertEquals(2, started.size());
+        assertEquals(0, admission.getWaiting(ACCESS_KEY));
+        assertEquals(1, admission.getInFlight(ACCESS_KEY));
+        assertTrue(third.signals.isEmpty());
+    }
+
+    @Test
+    public void testRateLimit() throws InterruptedException {
+        AdmissionControl admission = new AdmissionControl.Builder()
+                .withRate(20, 1)
+                .withMaxWait(1, TimeUnit.MINUTES)
+                .build();
+        List<ResponseListener<String>> started = new ArrayList<>();
+
+        admit(admission, new Recorder(), started);
+        admit(admission, new Recorder(), started);
+        assertEquals(1, started.size());
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (admission.getWaiting(ACCESS_KEY) > 0 && System.nanoTime() < deadline) Thread.sleep(10);
+        assertEquals(2, admission.getInFlight(ACCESS_KEY));
+    }
+}
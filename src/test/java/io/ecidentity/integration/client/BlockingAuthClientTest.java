@@ -0,0 +1,80 @@
+package io.ecidentity.integration.client;
+
+import io.ecidentity.integration.utils.Config;
+import io.ecidentity.protocol.authority.AuthStatusResponsePayload;
+import io.ecidentity.protocol.authority.InitAuthResponsePayload;
+import io.ecidentity.protocol.types.KeyEntryTypeProtocol;
+import org.junit.Test;
+
+import java.security.InvalidKeyException;
+import java.security.NoSuchAlgorithmException;
+import java.security.NoSuchProviderException;
+import java.security.SignatureException;
+import java.security.cert.CertificateException;
+
+import static io.ecidentity.integration.client.Constants.ACCESS_KEY_ID;
+import static io.ecidentity.integration.client.Constants.KEYSTORE_PASSWORD;
+import static io.ecidentity.integration.utils.CryptoUtils.decodeX509Certificate;
+import static io.ecidentity.integration.utils.CryptoUtils.verify;
+import static org.junit.Assert.assertTrue;
+
+public class BlockingAuthClientTest extends TestBase {
+
+    private final BlockingAuthClient client;
+
+    public BlockingAuthClientTest() throws NoSuchProviderException, CertificateException, NoSuchAlgorithmException, InvalidKeyException, SignatureException {
+        super(BlockingAuthClientTest.class.getSimpleName());
+
+        client = new BlockingAuthClient.Builder(Config.TEST)
+                .withAccessKey(ACCESS_KEY_ID)
+                .withKeyStore(keyStore)
+                .withPassword(KEYSTORE_PASSWORD.toCharArray())
+                .build();
+    }
+
+    @Test
+    public void testAuth() throws CertificateException, NoSuchProviderException, NoSuchAlgorithmException, InvalidKeyException, SignatureException {
+
+        byte[] randomHash = hash(new byte[0]);
+
+        AuthStatusResponsePayload responsePayload = client.auth(
+                "mail@mail.com",
+                KeyEntryTypeProtocol.EMAIL,
+                randomHash,
+                false,
+                true,
+                false);
+        logger.info(responsePayload.toString());
+
+        assertTrue(verify(randomHash,
+                decodeX509Certificate(responsePayload.getCertificate().toByteArray()).getPublicKey(),
+                responsePayload.getSignedHash().toByteArray()));
+    }
+
+    @Test
+    public void testFlow() throws CertificateException, NoSuchProviderException, NoSuchAlgorithmException, InvalidKeyException, SignatureException {
+
+        byte[] randomHash = hash(new byte[0]);
+
+        InitAuthResponsePayload initPayload = client.init(
+                "basiljev@gmail.com",
+                KeyEntryTypeProtocol.EMAIL,
+                randomHash,
+                false,
+                true,
+                false);
+        logger.info(initPayload.toString());
+
+        AuthStatusResponsePayload responsePayload = null;
+        try (ResponseIterator<AuthStatusResponsePayload> statuses = client.check(initPayload.getSessionId())) {
+            while (statuses.hasNext()) {
+                responsePayload = statuses.next();
+                logger.info(responsePayload.toString());
+            }
+        }
+
+        assertTrue(verify(randomHash,
+                decodeX509Certificate(responsePayload.getCertificate().toByteArray()).getPublicKey(),
+                responsePayload.getSignedHash().toByteArray()));
+    }
+}
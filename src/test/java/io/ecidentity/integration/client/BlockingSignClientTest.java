@@ -0,0 +1,47 @@
+package io.ecidentity.integration.client;
+
+import io.ecidentity.integration.utils.Config;
+import io.ecidentity.protocol.authority.InitSignResponsePayload;
+import io.ecidentity.protocol.authority.SignHashResponsePayload;
+import io.ecidentity.protocol.types.KeyEntryTypeProtocol;
+import io.ecidentity.protocol.types.ResultCodeExtProtocol;
+import org.junit.Test;
+
+import java.security.InvalidKeyException;
+import java.security.NoSuchAlgorithmException;
+import java.security.NoSuchProviderException;
+import java.security.SignatureException;
+import java.security.cert.CertificateException;
+
+import static io.ecidentity.integration.client.Constants.ACCESS_KEY_ID;
+import static io.ecidentity.integration.client.Constants.KEYSTORE_PASSWORD;
+import static org.junit.Assert.assertTrue;
+
+public class BlockingSignClientTest extends TestBase {
+
+    private final BlockingSignClient client;
+
+    public BlockingSignClientTest() throws NoSuchProviderException, CertificateException, NoSuchAlgorithmException, InvalidKeyException, SignatureException {
+        super(BlockingSignClientTest.class.getSimpleName());
+
+        client = new BlockingSignClient.Builder(Config.TEST)
+                .withAccessKey(ACCESS_KEY_ID)
+                .withKeyStore(keyStore)
+                .withPassword(KEYSTORE_PASSWORD.toCharArray())
+                .build();
+    }
+
+    @Test
+    public void test() {
+
+        InitSignResponsePayload initPayload = client.init(
+                "mail@mail.com",
+                KeyEntryTypeProtocol.EMAIL);
+        logger.info(initPayload.toString());
+
+        SignHashResponsePayload signHashResponsePayload = client.hash(initPayload.getSessionId(), hash(initPayload.getCertificate().toByteArray()));
+        logger.info(signHashResponsePayload.toString());
+
+        assertTrue(signHashResponsePayload.getResultCode().equals(ResultCodeExtProtocol.OK));
+    }
+}
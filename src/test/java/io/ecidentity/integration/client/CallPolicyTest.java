@@ -0,0 +1,47 @@
+package io.ecidentity.integration.client;
+
+import io.ecidentity.protocol.authority.IntegrationAuthServiceGrpc;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class CallPolicyTest {
+
+    @Test
+    public void testInitIsNeverRetried() {
+        assertInitNotRetried(new CallPolicy.Builder().build(), "retryPolicy");
+        assertInitNotRetried(new CallPolicy.Builder().withHedgingDelay(100, TimeUnit.MILLISECONDS).build(), "hedgingPolicy");
+    }
+
+    private static void assertInitNotRetried(CallPolicy policy, String otherCalls) {
+        List<?> methodConfig = (List<?>) policy.serviceConfig().get("methodConfig");
+        assertEquals(CallPolicy.UnaryCall.values().length - 1, methodConfig.size());
+        for (Object entry : methodConfig) {
+            Map<?, ?> config = (Map<?, ?>) entry;
+            Map<?, ?> name = (Map<?, ?>) ((List<?>) config.get("name")).get(0);
+            assertFalse("init".equals(name.get("method")) && IntegrationAuthServiceGrpc.SERVICE_NAME.equals(name.get("service")));
+            assertTrue(config.containsKey(otherCalls));
+        }
+    }
+
+    @Test
+    public void testDeadlines() {
+        CallPolicy policy = new CallPolicy.Builder()
+                .withDeadline(CallPolicy.UnaryCall.AUTH_INIT, 0, TimeUnit.SECONDS)
+                .withDeadline(CallPolicy.UnaryCall.AUTH_CANCEL, 2, TimeUnit.SECONDS)
+                .withMaxAttempts(1)
+                .build();
+
+        assertNull(policy.serviceConfig());
+        assertFalse(policy.deadlines().containsKey(IntegrationAuthServiceGrpc.getInitMethod().getFullMethodName()));
+        assertTrue(policy.deadlines().containsKey(IntegrationAuthServiceGrpc.getCancelMethod().getFullMethodName()));
+        assertEquals(TimeUnit.SECONDS.toNanos(2), (long) policy.deadlines().get(IntegrationAuthServiceGrpc.getCancelMethod().getFullMethodName()));
+    }
+}
@@ -0,0 +1,102 @@
+package io.ecidentity.integration.client;
+
+import com.google.protobuf.StringValue;
+import io.ecidentity.integration.testing.FakeAuthority;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.security.KeyStore;
+import java.security.PublicKey;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static io.ecidentity.integration.utils.CryptoUtils.sha256;
+import static io.ecidentity.integration.utils.CryptoUtils.verify;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class ClientBaseTest {
+
+    private static final String ALIAS = "client";
+    private static final char[] PASSWORD = "password".toCharArray();
+    private static final StringValue MESSAGE = StringValue.of("message");
+
+    private FakeAuthority authority;
+    private AuthorityConnection connection;
+    private KeyStore keyStore;
+    private PublicKey publicKey;
+
+    @Before
+    public void setUp() throws Exception {
+        authority = new FakeAuthority.Builder().build();
+        connection = new AuthorityConnection.Builder(authority.channelBuilder()).build();
+        keyStore = FakeAuthority.newClientKeyStore(ALIAS, PASSWORD);
+        publicKey = keyStore.getCertificate(ALIAS).getPublicKey();
+    }
+
+    @After
+    public void tearDown() {
+        connection.shutdown();
+        authority.close();
+    }
+
+    @Test
+    public void testSignDuringReload() throws Exception {
+        assertSignsDuringReload(newClient(false));
+    }
+
+    @Test
+    public void testPrecomputedSignDuringReload() throws Exception {
+        assertSignsDuringReload(newClient(true));
+    }
+
+    @Test
+    public void testSignAfterShutdownFails() throws Exception {
+        ClientBase client = newClient(true);
+        client.signMessage(MESSAGE);
+        client.shutdown();
+        try {
+            client.signMessage(MESSAGE);
+            fail("Signed after shutdown");
+        } catch (IllegalStateException expected) {
+            // key is gone
+        }
+        try {
+            client.reloadKey();
+            fail("Reloaded after shutdown");
+        } catch (IllegalStateException expected) {
+            // password is gone
+        }
+    }
+
+    private ClientBase newClient(boolean precomputedSigning) {
+        return new ClientBase(connection, false, keyStore, ALIAS, PASSWORD, Runnable::run, precomputedSigning);
+    }
+
+    /**
+     * Signatures made while the key is being reloaded all verify, since a reload leaves the
+     * previous key usable by signers that already hold it.
+     */
+    private void assertSignsDuringReload(ClientBase client) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<byte[]>> signatures = new ArrayList<>();
+            for (int i = 0; i < 200; i++) {
+                signatures.add(executor.submit(() -> client.signMessage(MESSAGE)));
+                if (i % 10 == 0) client.reloadKey();
+            }
+            byte[] hash = sha256(MESSAGE.toByteArray());
+            for (Future<byte[]> signature : signatures) {
+                assertTrue(verify(hash, publicKey, signature.get(5, TimeUnit.SECONDS)));
+            }
+        } finally {
+            executor.shutdownNow();
+            client.shutdown();
+        }
+    }
+}
@@ -0,0 +1,242 @@
+package io.ecidentity.integration.client;
+
+import com.google.protobuf.AbstractMessage;
+import io.ecidentity.integration.testing.FakeAuthority;
+import io.ecidentity.protocol.authority.IntegrationSignServiceGrpc;
+import io.ecidentity.protocol.types.KeyEntryTypeProtocol;
+import io.ecidentity.protocol.types.ResultCodeExtProtocol;
+import io.grpc.CallOptions;
+import io.grpc.Channel;
+import io.grpc.ClientCall;
+import io.grpc.ClientInterceptor;
+import io.grpc.ForwardingClientCall;
+import io.grpc.ForwardingClientCallListener;
+import io.grpc.Metadata;
+import io.grpc.MethodDescriptor;
+import io.grpc.Status;
+import io.reactivex.Flowable;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import reactor.core.publisher.Flux;
+
+import java.security.KeyStore;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static io.ecidentity.integration.utils.CryptoUtils.sha256;
+import static io.ecidentity.integration.utils.MessageUtils.getPayload;
+import static io.ecidentity.integration.utils.MessageUtils.getResultCode;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class HashAllTest {
+
+    private static final int HASHES = 24;
+    private static final int CONCURRENCY = 4;
+    private static final String ALIAS = "client";
+    private static final char[] PASSWORD = "password".toCharArray();
+
+    private final HashCalls hashCalls = new HashCalls();
+    private final List<byte[]> hashes = new ArrayList<>();
+
+    private FakeAuthority authority;
+    private AuthorityConnection connection;
+    private KeyStore keyStore;
+
+    @Before
+    public void setUp() throws Exception {
+        for (int i = 0; i < HASHES; i++) hashes.add(sha256(new byte[]{(byte) i}));
+        keyStore = FakeAuthority.newClientKeyStore(ALIAS, PASSWORD);
+    }
+
+    @After
+    public void tearDown() {
+        if (connection != null) connection.shutdown();
+        if (authority != null) authority.close();
+    }
+
+    @Test
+    public void testReactorOrdered() throws Exception {
+        connect(new FakeAuthority.Builder());
+        List<HashSignResult> results = reactorHashAll(true);
+
+        assertIndices(results, true);
+        assertEquals(HASHES, count(results, true));
+        assertEquals(CONCURRENCY, hashCalls.max.get());
+    }
+
+    @Test
+    public void testReactorUnordered() throws Exception {
+        connect(new FakeAuthority.Builder());
+        List<HashSignResult> results = reactorHashAll(false);
+
+        assertIndices(results, false);
+        assertEquals(HASHES, count(results, true));
+        assertEquals(CONCURRENCY, hashCalls.max.get());
+    }
+
+    @Test
+    public void testReactorFailures() throws Exception {
+        connect(new FakeAuthority.Builder()
+                .withResultCode(ResultCodeExtProtocol.OK, 1)
+                .withResultCode(ResultCodeExtProtocol.REFUSED, 1));
+        List<HashSignResult> results = reactorHashAll(true);
+
+        assertIndices(results, true);
+        assertFailures(results);
+    }
+
+    @Test
+    public void testRxOrdered() throws Exception {
+        connect(new FakeAuthority.Builder());
+        List<HashSignResult> results = rxHashAll(true);
+
+        assertIndices(results, true);
+        assertEquals(HASHES, count(results, true));
+        assertEquals(CONCURRENCY, hashCalls.max.get());
+    }
+
+    @Test
+    public void testRxUnordered() throws Exception {
+        connect(new FakeAuthority.Builder());
+        List<HashSignResult> results = rxHashAll(false);
+
+        assertIndices(results, false);
+        assertEquals(HASHES, count(results, true));
+        assertEquals(CONCURRENCY, hashCalls.max.get());
+    }
+
+    @Test
+    public void testRxFailures() throws Exception {
+        connect(new FakeAuthority.Builder()
+                .withResultCode(ResultCodeExtProtocol.OK, 1)
+                .withResultCode(ResultCodeExtProtocol.REFUSED, 1));
+        List<HashSignResult> results = rxHashAll(true);
+
+        assertIndices(results, true);
+        assertFailures(results);
+    }
+
+    /**
+     * Connects to an authority whose responses take 10 to 50 ms, so hashes complete out of order.
+     */
+    private void connect(FakeAuthority.Builder builder) throws Exception {
+        authority = builder.withLatency(10, 40, TimeUnit.MILLISECONDS).build();
+        connection = new AuthorityConnection.Builder(authority.channelBuilder().intercept(hashCalls)).build();
+    }
+
+    private List<HashSignResult> reactorHashAll(boolean ordered) throws Exception {
+        ReactorSignClient client = new ReactorSignClient.Builder(connection)
+                .withAccessKey("access-key")
+                .withKeyStore(keyStore)
+                .withKeyAlias(ALIAS)
+                .withPassword(PASSWORD)
+                .build();
+        try {
+            String sessionId = client.init("mail@mail.com", KeyEntryTypeProtocol.EMAIL).blockLast().getSessionId();
+            return client.hashAll(sessionId, Flux.fromIterable(hashes), CONCURRENCY, ordered).collectList().block();
+        } finally {
+            client.shutdown();
+        }
+    }
+
+    private List<HashSignResult> rxHashAll(boolean ordered) throws Exception {
+        RxSignClient client = new RxSignClient.Builder(connection)
+                .withAccessKey("access-key")
+                .withKeyStore(keyStore)
+                .withKeyAlias(ALIAS)
+                .withPassword(PASSWORD)
+                .build();
+        try {
+            String sessionId = client.init("mail@mail.com", KeyEntryTypeProtocol.EMAIL).blockingLast().getSessionId();
+            return client.hashAll(sessionId, Flowable.fromIterable(hashes), CONCURRENCY, ordered).toList().blockingGet();
+        } finally {
+            client.shutdown();
+        }
+    }
+
+    /**
+     * Every hash has exactly one result carrying its own index and hash, in submission order if
+     * ordered and otherwise in completion order.
+     */
+    private void assertIndices(List<HashSignResult> results, boolean ordered) {
+        assertEquals(HASHES, results.size());
+        boolean[] seen = new boolean[HASHES];
+        boolean inOrder = true;
+        for (int i = 0; i < results.size(); i++) {
+            HashSignResult result = results.get(i);
+            int index = (int) result.getIndex();
+            assertFalse("Duplicate result for hash " + index, seen[index]);
+            seen[index] = true;
+            assertArrayEquals(hashes.get(index), result.getHash());
+            inOrder &= index == i;
+        }
+        if (ordered) assertTrue("Results out of order", inOrder);
+        else assertFalse("Results unexpectedly in submission order", inOrder);
+    }
+
+    private static void assertFailures(List<HashSignResult> results) {
+        for (HashSignResult result : results) {
+            if (result.isSuccess()) {
+                assertEquals(ResultCodeExtProtocol.OK, result.getPayload().getResultCode());
+            } else {
+                assertNotNull(result.getError());
+                assertNull(result.getPayload());
+            }
+        }
+        assertNotEquals(0, count(results, true));
+        assertNotEquals(0, count(results, false));
+    }
+
+    private static int count(List<HashSignResult> results, boolean success) {
+        int count = 0;
+        for (HashSignResult result : results) if (result.isSuccess() == success) count++;
+        return count;
+    }
+
+    /**
+     * Counts the sign {@code hash} calls in flight. A call ends with its final frame, since the client
+     * cancels the stream then and its close is only reported later.
+     */
+    private static final class HashCalls implements ClientInterceptor {
+        private final AtomicInteger active = new AtomicInteger();
+        private final AtomicInteger max = new AtomicInteger();
+
+        @Override
+        public <ReqT, RespT> ClientCall<ReqT, RespT> interceptCall(MethodDescriptor<ReqT, RespT> method, CallOptions callOptions, Channel next) {
+            ClientCall<ReqT, RespT> call = next.newCall(method, callOptions);
+            if (!method.getFullMethodName().equals(IntegrationSignServiceGrpc.getHashMethod().getFullMethodName())) return call;
+            return new ForwardingClientCall.SimpleForwardingClientCall<ReqT, RespT>(call) {
+                @Override
+                public void start(Listener<RespT> listener, Metadata headers) {
+                    max.accumulateAndGet(active.incrementAndGet(), Math::max);
+                    AtomicBoolean ended = new AtomicBoolean();
+                    super.start(new ForwardingClientCallListener.SimpleForwardingClientCallListener<RespT>(listener) {
+                        @Override
+                        public void onMessage(RespT message) {
+                            if (getResultCode(getPayload((AbstractMessage) message)) != ResultCodeExtProtocol.PENDING && ended.compareAndSet(false, true)) {
+                                active.decrementAndGet();
+                            }
+                            super.onMessage(message);
+                        }
+
+                        @Override
+                        public void onClose(Status status, Metadata trailers) {
+                            if (ended.compareAndSet(false, true)) active.decrementAndGet();
+                            super.onClose(status, trailers);
+                        }
+                    }, headers);
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,204 @@
+package io.ecidentity.integration.client;
+
+import com.google.protobuf.ByteString;
+import com.google.protobuf.CodedOutputStream;
+import com.google.protobuf.UnknownFieldSet;
+import io.ecidentity.integration.testing.TestCertificates;
+import io.ecidentity.protocol.authority.AuthStatusResponse;
+import io.ecidentity.protocol.authority.AuthStatusResponsePayload;
+import io.ecidentity.protocol.authority.InitAuthRequest;
+import io.ecidentity.protocol.authority.InitAuthRequestPayload;
+import io.ecidentity.protocol.authority.IntegrationAuthServiceGrpc;
+import io.ecidentity.protocol.types.KeyEntryTypeProtocol;
+import io.ecidentity.protocol.types.ResultCodeExtProtocol;
+import io.grpc.Drainable;
+import io.grpc.MethodDescriptor;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.KeyPair;
+import java.util.Arrays;
+
+import static io.ecidentity.integration.utils.CryptoUtils.sha256;
+import static io.ecidentity.integration.utils.CryptoUtils.sign;
+import static io.ecidentity.integration.utils.CryptoUtils.verify;
+import static io.ecidentity.integration.utils.MessageUtils.ENCODED_PAYLOAD_FIELD;
+import static io.ecidentity.integration.utils.MessageUtils.PAYLOAD_DIGEST_FIELD;
+import static io.ecidentity.integration.utils.MessageUtils.getPayloadDigest;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class PayloadCapturingInterceptorTest {
+
+    private static final InitAuthRequestPayload PAYLOAD = payload("mail@mail.com");
+
+    private final PayloadCapturingInterceptor interceptor = new PayloadCapturingInterceptor();
+    private final MethodDescriptor<InitAuthRequest, ?> init = interceptor.capturing(IntegrationAuthServiceGrpc.getInitMethod());
+    private final MethodDescriptor<?, AuthStatusResponse> check = interceptor.capturing(IntegrationAuthServiceGrpc.getCheckMethod());
+
+    @Test
+    public void testDigestOfPayloadAsReceived() throws Exception {
+        // fields in reverse order, so re-encoding the parsed payload gives different bytes
+        byte[] payload = concat(
+                field(AuthStatusResponsePayload.SESSION_ID_FIELD_NUMBER, ByteString.copyFromUtf8("session")),
+                varint(AuthStatusResponsePayload.RESULT_CODE_FIELD_NUMBER, ResultCodeExtProtocol.PENDING_VALUE));
+
+        AuthStatusResponse response = parse(field(AuthStatusResponse.PAYLOAD_FIELD_NUMBER, ByteString.copyFrom(payload)));
+
+        assertArrayEquals(sha256(payload), getPayloadDigest(response));
+        assertFalse(Arrays.equals(sha256(payload), sha256(response.getPayload().toByteArray())));
+        assertArrayEquals(sha256(payload), ClientBase.payloadDigest(response, response.getPayload()));
+    }
+
+    @Test
+    public void testForgedDigestReplaced() throws Exception {
+        KeyPair keys = TestCertificates.newKeyPair();
+        byte[] signedPayload = payload(ResultCodeExtProtocol.OK, "signed").toByteArray();
+        byte[] signature = sign(sha256(signedPayload), keys.getPrivate());
+        AuthStatusResponsePayload forgedPayload = payload(ResultCodeExtProtocol.OK, "forged");
+
+        AuthStatusResponse response = parse(concat(
+                field(AuthStatusResponse.PAYLOAD_FIELD_NUMBER, forgedPayload.toByteString()),
+                field(AuthStatusResponse.SIGNATURE_FIELD_NUMBER, ByteString.copyFrom(signature)),
+                field(PAYLOAD_DIGEST_FIELD, ByteString.copyFrom(sha256(signedPayload)))));
+
+        byte[] digest = ClientBase.payloadDigest(response, response.getPayload());
+        assertArrayEquals(sha256(forgedPayload.toByteArray()), digest);
+        assertEquals(1, response.getUnknownFields().getField(PAYLOAD_DIGEST_FIELD).getLengthDelimitedList().size());
+        assertFalse(verify(digest, keys.getPublic(), signature));
+        // the forged digest would have passed
+        assertTrue(verify(sha256(signedPayload), keys.getPublic(), signature));
+    }
+
+    @Test
+    public void testForgedDigestRemovedWithoutPayload() throws Exception {
+        AuthStatusResponse response = parse(field(PAYLOAD_DIGEST_FIELD, ByteString.copyFrom(sha256(new byte[]{1}))));
+
+        assertFalse(response.hasPayload());
+        assertNull(getPayloadDigest(response));
+        assertFalse(response.getUnknownFields().hasField(PAYLOAD_DIGEST_FIELD));
+    }
+
+    @Test
+    public void testRepeatedPayloadReencoded() throws Exception {
+        AuthStatusResponse response = parse(concat(
+                field(AuthStatusResponse.PAYLOAD_FIELD_NUMBER, payload(ResultCodeExtProtocol.PENDING, "first").toByteString()),
+                field(AuthStatusResponse.PAYLOAD_FIELD_NUMBER, payload(ResultCodeExtProtocol.OK, "second").toByteString()),
+                field(PAYLOAD_DIGEST_FIELD, ByteString.copyFrom(sha256(new byte[]{1})))));
+
+        // repeated occurrences are merged, so no single occurrence is the payload that was parsed
+        assertEquals(payload(ResultCodeExtProtocol.PENDING, "second"), response.getPayload());
+        assertNull(getPayloadDigest(response));
+        assertArrayEquals(sha256(response.getPayload().toByteArray()), ClientBase.payloadDigest(response, response.getPayload()));
+    }
+
+    @Test
+    public void testEncodedPayloadWritten() throws Exception {
+        InitAuthRequest request = envelope(PAYLOAD, PAYLOAD.toByteString());
+
+        InitAuthRequest sent = InitAuthRequest.parseFrom(drain(init.streamRequest(request)));
+
+        assertEquals(envelope(PAYLOAD, null), sent);
+        assertFalse(sent.getUnknownFields().hasField(ENCODED_PAYLOAD_FIELD));
+    }
+
+    @Test
+    public void testEncodedPayloadNotReencoded() throws Exception {
+        InitAuthRequestPayload signed = payload("signed@mail.com");
+
+        InitAuthRequest sent = InitAuthRequest.parseFrom(drain(init.streamRequest(envelope(PAYLOAD, signed.toByteString()))));
+
+        assertEquals(signed, sent.getPayload());
+    }
+
+    @Test
+    public void testEncodedPayloadRead() throws Exception {
+        InitAuthRequest request = envelope(PAYLOAD, PAYLOAD.toByteString());
+
+        assertArrayEquals(drain(init.streamRequest(request)), read(init.streamRequest(request)));
+    }
+
+    @Test
+    public void testEnvelopeWithoutEncodedPayload() throws Exception {
+        InitAuthRequest request = envelope(PAYLOAD, null);
+
+        assertArrayEquals(request.toByteArray(), read(init.streamRequest(request)));
+    }
+
+    private AuthStatusResponse parse(byte[] encoded) {
+        return check.parseResponse(new ByteArrayInputStream(encoded));
+    }
+
+    private static AuthStatusResponsePayload payload(ResultCodeExtProtocol resultCode, String sessionId) {
+        return AuthStatusResponsePayload.newBuilder()
+                .setResultCode(resultCode)
+                .setSessionId(sessionId)
+                .build();
+    }
+
+    private static byte[] field(int number, ByteString value) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        CodedOutputStream output = CodedOutputStream.newInstance(bytes);
+        output.writeBytes(number, value);
+        output.flush();
+        return bytes.toByteArray();
+    }
+
+    private static byte[] varint(int number, int value) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        CodedOutputStream output = CodedOutputStream.newInstance(bytes);
+        output.writeInt32(number, value);
+        output.flush();
+        return bytes.toByteArray();
+    }
+
+    private static byte[] concat(byte[]... parts) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        for (byte[] part : parts) bytes.write(part);
+        return bytes.toByteArray();
+    }
+
+    private static InitAuthRequestPayload payload(String email) {
+        return InitAuthRequestPayload.newBuilder()
+                .setEmail(email)
+                .setType(KeyEntryTypeProtocol.EMAIL)
+                .setHashToSign(ByteString.copyFrom(new byte[32]))
+                .build();
+    }
+
+    private static InitAuthRequest envelope(InitAuthRequestPayload payload, ByteString encoded) {
+        InitAuthRequest.Builder builder = InitAuthRequest.newBuilder()
+                .setAccessKeyId("access-key")
+                .setSignature(ByteString.copyFrom(new byte[]{1, 2, 3}))
+                .setPayload(payload);
+        if (encoded != null) {
+            builder.setUnknownFields(UnknownFieldSet.newBuilder()
+                    .addField(ENCODED_PAYLOAD_FIELD, UnknownFieldSet.Field.newBuilder().addLengthDelimited(encoded).build())
+                    .build());
+        }
+        return builder.build();
+    }
+
+    private static byte[] drain(InputStream stream) throws IOException {
+        assertTrue(stream instanceof Drainable);
+        int size = stream.available();
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        assertEquals(size, ((Drainable) stream).drainTo(output));
+        assertEquals(size, output.size());
+        return output.toByteArray();
+    }
+
+    private static byte[] read(InputStream stream) throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        byte[] chunk = new byte[7];
+        int count;
+        while ((count = stream.read(chunk)) >= 0) output.write(chunk, 0, count);
+        return output.toByteArray();
+    }
+}
@@ -0,0 +1,70 @@
+package io.ecidentity.integration.client;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class ResponseIteratorTest {
+
+    private static ResponseIterator<Integer> range(int count, List<String> calls) {
+        return ResponseIterator.start(listener -> new ResponseCall() {
+            private int next;
+
+            @Override
+            public void request(long n) {
+                calls.add("request " + n);
+                for (long i = 0; i < n && next < count; i++) listener.onNext(next++);
+                if (next == count) listener.onCompleted();
+            }
+
+            @Override
+            public void cancel() {
+                calls.add("cancel");
+            }
+        });
+    }
+
+    @Test
+    public void testRequestsOneAtATime() {
+        List<String> calls = new ArrayList<>();
+        ResponseIterator<Integer> responses = range(2, calls);
+
+        assertTrue(responses.hasNext());
+        assertTrue(responses.hasNext());
+        assertEquals(Integer.valueOf(0), responses.next());
+        assertEquals(Integer.valueOf(1), responses.next());
+        assertFalse(responses.hasNext());
+        assertEquals(Arrays.asList("request 1", "request 1"), calls);
+    }
+
+    @Test
+    public void testLastClosesCall() {
+        List<String> calls = new ArrayList<>();
+
+        assertEquals(Integer.valueOf(2), range(3, calls).last());
+        assertEquals("cancel", calls.get(calls.size() - 1));
+    }
+
+    @Test
+    public void testFailureIsThrown() {
+        ResponseIterator<Integer> responses = ResponseIterator.start(listener -> {
+            listener.onError(new Exception("Invalid signature"));
+            return ResponseCall.FAILED;
+        });
+
+        try {
+            responses.hasNext();
+            fail();
+        } catch (RuntimeException e) {
+            assertEquals("Invalid signature", e.getCause().getMessage());
+        }
+        assertFalse(responses.hasNext());
+    }
+}
@@ -0,0 +1,55 @@
+package io.ecidentity.integration.client;
+
+import org.junit.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+public class ResponsePublisherTest {
+
+    private static ResponsePublisher<Integer> range(int count, List<String> calls) {
+        return new ResponsePublisher<>(listener -> new ResponseCall() {
+            private int next;
+
+            @Override
+            public void request(long n) {
+                calls.add("request " + n);
+                for (long i = 0; i < n && next < count; i++) listener.onNext(next++);
+                if (next == count) listener.onCompleted();
+            }
+
+            @Override
+            public void cancel() {
+                calls.add("cancel");
+            }
+        });
+    }
+
+    @Test
+    public void testDemandReachesCall() {
+        List<String> calls = new ArrayList<>();
+
+        assertEquals(Arrays.asList(0, 1, 2, 3), Flux.from(range(4, calls)).limitRate(2).collectList().block());
+        for (String call : calls) assertEquals("request 2", call);
+    }
+
+    @Test
+    public void testCancelStopsCall() {
+        List<String> calls = new ArrayList<>();
+
+        assertEquals(Arrays.asList(0, 1), Flux.from(range(10, calls)).take(2).collectList().block());
+        assertEquals(Arrays.asList("request " + Long.MAX_VALUE, "cancel"), calls);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testStartFailure() {
+        Mono.fromDirect(new ResponsePublisher<Integer>(listener -> {
+            throw new IllegalStateException("not started");
+        })).block();
+    }
+}
@@ -0,0 +1,57 @@
+package io.ecidentity.integration.client;
+
+import org.junit.Test;
+import reactor.core.publisher.DirectProcessor;
+import reactor.core.publisher.Flux;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+
+public class SessionStatusHubTest {
+
+    @Test
+    public void testSharedUpstream() {
+        AtomicInteger opened = new AtomicInteger();
+        DirectProcessor<String> statuses = DirectProcessor.create();
+        SessionStatusHub<String> hub = new SessionStatusHub<>(sessionId -> {
+            opened.incrementAndGet();
+            return statuses;
+        });
+
+        List<String> first = new ArrayList<>();
+        List<String> second = new ArrayList<>();
+        hub.watch("session").subscribe(first::add);
+        statuses.onNext("PENDING");
+        hub.watch("session").subscribe(second::add);
+
+        assertEquals(1, opened.get());
+        assertEquals(1, hub.getSessionCount());
+        assertEquals(1, hub.getOpenStreamCount());
+        assertEquals(2, hub.getSubscriberCount());
+        assertEquals("PENDING", second.get(0));
+
+        statuses.onNext("OK");
+        statuses.onComplete();
+
+        assertEquals(2, first.size());
+        assertEquals(2, second.size());
+        assertEquals(0, hub.getSessionCount());
+        assertEquals(0, hub.getOpenStreamCount());
+        assertEquals(0, hub.getSubscriberCount());
+    }
+
+    @Test
+    public void testCancelLastSubscriber() {
+        SessionStatusHub<String> hub = new SessionStatusHub<>(sessionId -> Flux.never());
+
+        hub.watch("a").subscribe().dispose();
+        hub.watch("b").subscribe();
+
+        assertEquals(1, hub.getSessionCount());
+        assertEquals(1, hub.getOpenStreamCount());
+        assertEquals(1, hub.getSubscriberCount());
+    }
+}
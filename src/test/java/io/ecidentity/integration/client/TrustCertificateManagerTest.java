@@ -0,0 +1,61 @@
+package io.ecidentity.integration.client;
+
+import io.ecidentity.integration.testing.FakeAuthority;
+import org.junit.Test;
+
+import java.security.cert.CertificateException;
+import java.security.cert.CertificateExpiredException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class TrustCertificateManagerTest {
+
+    @Test
+    public void testExpiredCertificateRejected() throws Exception {
+        try (FakeAuthority authority = new FakeAuthority.Builder()
+                .withCertificateValidity(-1, TimeUnit.MINUTES)
+                .build()) {
+            try {
+                new AuthorityConnection.Builder(authority.channelBuilder()).build().shutdown();
+                fail("Expired certificate accepted");
+            } catch (CertificateExpiredException expected) {
+                // rejected
+            }
+        }
+    }
+
+    @Test
+    public void testExpiredCertificateFailsFast() throws Exception {
+        try (FakeAuthority authority = new FakeAuthority.Builder()
+                .withCertificateValidity(2, TimeUnit.SECONDS)
+                .build()) {
+            AuthorityConnection connection = new AuthorityConnection.Builder(authority.channelBuilder()).build();
+            try {
+                Thread.sleep(2500);
+                long startedAt = System.nanoTime();
+                try {
+                    connection.trust().get();
+                    fail("Expired certificate returned");
+                } catch (CertificateExpiredException expected) {
+                    assertTrue(System.nanoTime() - startedAt < TimeUnit.SECONDS.toNanos(1));
+                }
+            } finally {
+                connection.shutdown();
+            }
+        }
+    }
+
+    @Test
+    public void testAwaitTimesOut() throws Exception {
+        long startedAt = System.nanoTime();
+        try {
+            TrustCertificateManager.await(new CompletableFuture<>(), 50);
+            fail("Pending refresh returned");
+        } catch (CertificateException expected) {
+            assertTrue(System.nanoTime() - startedAt < TimeUnit.SECONDS.toNanos(5));
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package io.ecidentity.integration.client;
+
+import com.google.protobuf.ByteString;
+import io.ecidentity.integration.metrics.ClientMetrics;
+import io.ecidentity.integration.testing.FakeAuthority;
+import io.ecidentity.protocol.authority.AuthStatusResponse;
+import io.ecidentity.protocol.authority.AuthStatusResponsePayload;
+import io.ecidentity.protocol.types.KeyEntryTypeProtocol;
+import io.ecidentity.protocol.types.ResultCodeExtProtocol;
+import io.grpc.ClientCall;
+import io.grpc.Metadata;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static io.ecidentity.integration.utils.CryptoUtils.sha256;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class VerifiedCallTest {
+
+    @Test
+    public void testUnboundedDemandCapped() {
+        RecordingCall call = new RecordingCall();
+        VerifiedCall<AuthStatusResponse, Object> verified = new VerifiedCall<>(null, call, null, true, ClientMetrics.NOOP, "check");
+
+        verified.request(3);
+        verified.request(Long.MAX_VALUE);
+        verified.request(Long.MAX_VALUE);
+        verified.request(1);
+
+        assertEquals(Integer.MAX_VALUE, call.requested);
+        assertEquals(2, call.requests);
+    }
+
+    @Test
+    public void testForgedResponseNotCounted() throws Exception {
+        AuthStatusResponse forged = AuthStatusResponse.newBuilder()
+                .setPayload(AuthStatusResponsePayload.newBuilder().setResultCode(ResultCodeExtProtocol.OK))
+                .setSignature(ByteString.copyFrom(new byte[]{1, 2, 3}))
+                .build();
+        assertRejected(forged);
+    }
+
+    @Test
+    public void testResponseWithoutPayloadRejected() throws Exception {
+        assertRejected(AuthStatusResponse.newBuilder().setSignature(ByteString.copyFrom(new byte[]{1, 2, 3})).build());
+    }
+
+    @Test
+    public void testVerifiedResultCounted() throws Exception {
+        RecordingMetrics metrics = new RecordingMetrics();
+        try (FakeAuthority authority = new FakeAuthority.Builder().withResultCode(ResultCodeExtProtocol.REFUSED, 1).build()) {
+            AuthorityConnection connection = new AuthorityConnection.Builder(authority.channelBuilder()).withMetrics(metrics).build();
+            BlockingAuthClient client = new BlockingAuthClient.Builder(connection)
+                    .withAccessKey("access-key")
+                    .withKeyStore(FakeAuthority.newClientKeyStore("client", "password".toCharArray()))
+                    .withPassword("password".toCharArray())
+                    .build();
+            try {
+                client.auth("mail@mail.com", KeyEntryTypeProtocol.EMAIL, sha256(new byte[]{1}), false, false, false);
+                fail("Refused session succeeded");
+            } catch (RuntimeException expected) {
+                // session refused
+            } finally {
+                client.shutdown();
+                connection.shutdown();
+            }
+        }
+        assertTrue(metrics.results.contains(ResultCodeExtProtocol.REFUSED));
+    }
+
+    private static void assertRejected(AuthStatusResponse response) throws Exception {
+        try (FakeAuthority authority = new FakeAuthority.Builder().build()) {
+            AuthorityConnection connection = new AuthorityConnection.Builder(authority.channelBuilder()).build();
+            try {
+                ClientBase client = new ClientBase(connection, null, null, null, Runnable::run);
+                RecordingCall call = new RecordingCall();
+                RecordingMetrics metrics = new RecordingMetrics();
+                RecordingListener listener = new RecordingListener();
+                VerifiedCall<AuthStatusResponse, Object> verified = new VerifiedCall<>(client, call, listener, true, metrics, "check");
+
+                verified.onMessage(response);
+
+                assertTrue(metrics.results.isEmpty());
+                assertTrue(call.cancelled);
+                assertEquals(1, listener.errors.size());
+                assertTrue(listener.errors.get(0) instanceof RuntimeException);
+            } finally {
+                connection.shutdown();
+            }
+        }
+    }
+
+    private static final class RecordingCall extends ClientCall<Object, AuthStatusResponse> {
+        private long requested;
+        private int requests;
+        private boolean cancelled;
+
+        @Override
+        public void start(Listener<AuthStatusResponse> responseListener, Metadata headers) {
+        }
+
+        @Override
+        public void request(int numMessages) {
+            requested += numMessages;
+            requests++;
+        }
+
+        @Override
+        public void cancel(String message, Throwable cause) {
+            cancelled = true;
+        }
+
+        @Override
+        public void halfClose() {
+        }
+
+        @Override
+        public void sendMessage(Object message) {
+        }
+    }
+
+    private static final class RecordingMetrics implements ClientMetrics {
+        private final List<ResultCodeExtProtocol> results = new CopyOnWriteArrayList<>();
+
+        @Override
+        public void recordResult(String rpc, ResultCodeExtProtocol resultCode) {
+            results.add(resultCode);
+        }
+    }
+
+    private static final class RecordingListener implements ResponseListener<Object> {
+        private final List<Throwable> errors = new ArrayList<>();
+
+        @Override
+        public void onNext(Object payload) {
+            throw new AssertionError("Unverified payload delivered");
+        }
+
+        @Override
+        public void onError(Throwable error) {
+            errors.add(error);
+        }
+
+        @Override
+        public void onCompleted() {
+        }
+    }
+}
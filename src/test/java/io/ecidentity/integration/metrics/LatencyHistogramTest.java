@@ -0,0 +1,32 @@
+package io.ecidentity.integration.metrics;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class LatencyHistogramTest {
+
+    @Test
+    public void testBucketBounds() {
+        long[] values = {0, 1, 63, 64, 65, 1000, 123456789, Long.MAX_VALUE};
+        for (long value : values) {
+            long highest = LatencyHistogram.highestValue(LatencyHistogram.index(value));
+            assertTrue(highest >= value);
+            assertTrue(highest - value <= value / 32);
+        }
+    }
+
+    @Test
+    public void testPercentiles() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long i = 1; i <= 10000; i++) histogram.record(i * 1000);
+
+        assertEquals(10000, histogram.getCount());
+        assertEquals(10_000_000, histogram.getMax());
+        assertEquals(5_000_500, histogram.getMean(), 1);
+        long median = histogram.getValueAtPercentile(50);
+        assertTrue(median >= 5_000_000 && median <= 5_000_000 * 33 / 32);
+        assertEquals(10_000_000, histogram.getValueAtPercentile(100));
+    }
+}
@@ -0,0 +1,552 @@
+package io.ecidentity.integration.testing;
+
+import com.google.protobuf.AbstractMessage;
+import com.google.protobuf.ByteString;
+import io.ecidentity.protocol.authority.*;
+import io.ecidentity.protocol.types.ResultCodeExtProtocol;
+import io.grpc.ManagedChannelBuilder;
+import io.grpc.Server;
+import io.grpc.ServerBuilder;
+import io.grpc.Status;
+import io.grpc.inprocess.InProcessChannelBuilder;
+import io.grpc.inprocess.InProcessServerBuilder;
+import io.grpc.netty.shaded.io.grpc.netty.NettyChannelBuilder;
+import io.grpc.netty.shaded.io.grpc.netty.NettyServerBuilder;
+import io.grpc.stub.ServerCallStreamObserver;
+import io.grpc.stub.StreamObserver;
+import org.bouncycastle.asn1.x500.X500Name;
+import org.bouncycastle.jce.provider.BouncyCastleProvider;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.security.GeneralSecurityException;
+import java.security.KeyPair;
+import java.security.KeyStore;
+import java.security.Security;
+import java.security.cert.X509Certificate;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static io.ecidentity.integration.testing.TestCertificates.issue;
+import static io.ecidentity.integration.testing.TestCertificates.keyStore;
+import static io.ecidentity.integration.testing.TestCertificates.newKeyPair;
+import static io.ecidentity.integration.testing.TestCertificates.userName;
+import static io.ecidentity.integration.utils.CryptoUtils.getSubjectData;
+import static io.ecidentity.integration.utils.CryptoUtils.sha256;
+import static io.ecidentity.integration.utils.CryptoUtils.sign;
+
+/**
+ * Authority that runs inside the test JVM, for offline tests and reproducible load tests of the clients.
+ * <p>
+ * Implements the auth, sign and trust services and signs every response with a generated authority
+ * key. Sessions stay {@code PENDING} for a configurable time while status streams report progress,
+ * the first response of every call can be delayed by a fixed latency plus uniform jitter, and the
+ * final result of each session is drawn from a weighted mix of result codes. All randomness comes
+ * from a seeded generator. The authority certificate is replaced with a new key once it expires.
+ * A sign session accepts any number of hashes, each with its own status stream and result, until it
+ * is cancelled or expires.
+ * <p>
+ * Connect with {@code new AuthorityConnection.Builder(authority.channelBuilder())}. Requests are
+ * not authenticated, so any key store, e.g. one from {@link #newClientKeyStore}, is accepted.
+ */
+public final class FakeAuthority implements AutoCloseable {
+
+    private static final long USER_CERTIFICATE_VALIDITY_MILLIS = TimeUnit.DAYS.toMillis(365);
+
+    public static class Builder {
+        private long pendingNanos;
+        private long statusIntervalNanos = TimeUnit.MILLISECONDS.toNanos(100);
+        private long latencyNanos;
+        private long jitterNanos;
+        private final Map<ResultCodeExtProtocol, Integer> resultCodes = new EnumMap<>(ResultCodeExtProtocol.class);
+        private long certificateValidityMillis = TimeUnit.DAYS.toMillis(365);
+        private long seed = 1;
+        private int threads = 2;
+        private boolean netty;
+
+        /**
+         * Time a session stays {@code PENDING} before its final result, defaults to none.
+         */
+        public Builder withPendingDuration(long duration, TimeUnit unit) {
+            this.pendingNanos = unit.toNanos(duration);
+            return this;
+        }
+
+        /**
+         * Interval between {@code PENDING} frames of a status stream, defaults to 100 ms.
+         */
+        public Builder withStatusInterval(long interval, TimeUnit unit) {
+            if (interval <= 0) throw new IllegalArgumentException("Status interval must be positive");
+            this.statusIntervalNanos = unit.toNanos(interval);
+            return this;
+        }
+
+        /**
+         * Delays the first response of every call by {@code latency} plus a uniformly distributed
+         * jitter below {@code jitter}.
+         */
+        public Builder withLatency(long latency, long jitter, TimeUnit unit) {
+            this.latencyNanos = unit.toNanos(latency);
+            this.jitterNanos = unit.toNanos(jitter);
+            return this;
+        }
+
+        /**
+         * Adds a final session result with the given relative weight. Sessions end with {@code OK}
+         * unless result codes are configured.
+         */
+        public Builder withResultCode(ResultCodeExtProtocol resultCode, int weight) {
+            if (weight < 0) throw new IllegalArgumentException("Weight must not be negative");
+            resultCodes.put(resultCode, weight);
+            return this;
+        }
+
+        /**
+         * Validity of each authority certificate, defaults to a year. The certificate returned for
+         * the user is always valid for a year.
+         */
+        public Builder withCertificateValidity(long validity, TimeUnit unit) {
+            this.certificateValidityMillis = unit.toMillis(validity);
+            return this;
+        }
+
+        public Builder withSeed(long seed) {
+            this.seed = seed;
+            return this;
+        }
+
+        /**
+         * Number of threads that produce delayed responses, defaults to 2.
+         */
+        public Builder withThreads(int threads) {
+            if (threads < 1) throw new IllegalArgumentException("At least one thread is required");
+            this.threads = threads;
+            return this;
+        }
+
+        /**
+         * Serves over plaintext HTTP/2 on a loopback port instead of the in-process transport, so
+         * the transport cost is part of the measurement.
+         */
+        public Builder withNettyLoopback() {
+            this.netty = true;
+            return this;
+        }
+
+        public FakeAuthority build() throws IOException, GeneralSecurityException {
+            return new FakeAuthority(this);
+        }
+    }
+
+    private static final long SESSION_EXPIRY_MILLIS = TimeUnit.MINUTES.toMillis(5);
+    private static final int REPORT_SIZE = 4096;
+
+    private static final class SigningKey {
+        private final KeyPair keys;
+        private final X509Certificate certificate;
+
+        private SigningKey(KeyPair keys, X509Certificate certificate) {
+            this.keys = keys;
+            this.certificate = certificate;
+        }
+    }
+
+    private static final class Session {
+        private final Session signSession;
+        private final String id;
+        private final byte[] hashToSign;
+        private final boolean subject;
+        private final boolean report;
+        private final long expiresAt;
+        private final long completesAt;
+        private final ResultCodeExtProtocol result;
+        private volatile boolean cancelled;
+
+        private Session(String id, byte[] hashToSign, boolean subject, boolean report, long expiresAt, long completesAt, ResultCodeExtProtocol result) {
+            this.signSession = null;
+            this.id = id;
+            this.hashToSign = hashToSign;
+            this.subject = subject;
+            this.report = report;
+            this.expiresAt = expiresAt;
+            this.completesAt = completesAt;
+            this.result = result;
+        }
+
+        /**
+         * Signing of one hash within a sign session, cancelled together with the sign session.
+         */
+        private Session(Session signSession, byte[] hashToSign, long completesAt, ResultCodeExtProtocol result) {
+            this.signSession = signSession;
+            this.id = signSession.id;
+            this.hashToSign = hashToSign;
+            this.subject = false;
+            this.report = false;
+            this.expiresAt = signSession.expiresAt;
+            this.completesAt = completesAt;
+            this.result = result;
+        }
+
+        private boolean isCancelled() {
+            return cancelled || (signSession != null && signSession.cancelled);
+        }
+    }
+
+    private interface Frame<T> {
+        T build(Session session, ResultCodeExtProtocol resultCode) throws Exception;
+    }
+
+    private final long pendingNanos;
+    private final long statusIntervalNanos;
+    private final long latencyNanos;
+    private final long jitterNanos;
+    private final ResultCodeExtProtocol[] results;
+    private final int[] cumulativeWeights;
+    private final long certificateValidityMillis;
+    private final Random random;
+    private final ScheduledThreadPoolExecutor scheduler;
+    private final ConcurrentMap<String, Session> sessions = new ConcurrentHashMap<>();
+    private final AtomicLong calls = new AtomicLong();
+    private final KeyPair userKeys;
+    private final X509Certificate userCertificate;
+    private final Map<String, String> userSubject;
+    private final String name;
+    private final Server server;
+
+    private volatile SigningKey signingKey;
+
+    private FakeAuthority(Builder builder) throws IOException, GeneralSecurityException {
+        Security.addProvider(new BouncyCastleProvider());
+        this.pendingNanos = builder.pendingNanos;
+        this.statusIntervalNanos = builder.statusIntervalNanos;
+        this.latencyNanos = builder.latencyNanos;
+        this.jitterNanos = builder.jitterNanos;
+        this.certificateValidityMillis = builder.certificateValidityMillis;
+        this.random = new Random(builder.seed);
+
+        Map<ResultCodeExtProtocol, Integer> resultCodes = new EnumMap<>(builder.resultCodes);
+        if (resultCodes.isEmpty()) resultCodes.put(ResultCodeExtProtocol.OK, 1);
+        this.results = new ResultCodeExtProtocol[resultCodes.size()];
+        this.cumulativeWeights = new int[resultCodes.size()];
+        int total = 0;
+        int i = 0;
+        for (Map.Entry<ResultCodeExtProtocol, Integer> entry : resultCodes.entrySet()) {
+            total += entry.getValue();
+            results[i] = entry.getKey();
+            cumulativeWeights[i++] = total;
+        }
+        if (total == 0) throw new IllegalArgumentException("At least one result code needs a positive weight");
+
+        this.userKeys = newKeyPair();
+        this.userCertificate = issue(userName(), userKeys, USER_CERTIFICATE_VALIDITY_MILLIS);
+        this.userSubject = getSubjectData(userCertificate);
+        this.signingKey = newSigningKey();
+
+        AtomicInteger threadCount = new AtomicInteger();
+        this.scheduler = new ScheduledThreadPoolExecutor(builder.threads, runnable -> {
+            Thread thread = new Thread(runnable, "fake-authority-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.setRemoveOnCancelPolicy(true);
+        scheduler.scheduleWithFixedDelay(this::purgeExpiredSessions, 1, 1, TimeUnit.MINUTES);
+
+        ServerBuilder<?> serverBuilder;
+        if (builder.netty) {
+            this.name = null;
+            serverBuilder = NettyServerBuilder.forAddress(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+        } else {
+            this.name = "fake-authority-" + UUID.randomUUID();
+            serverBuilder = InProcessServerBuilder.forName(name);
+        }
+        this.server = serverBuilder
+                .directExecutor()
+                .addService(new AuthService())
+                .addService(new SignService())
+                .addService(new TrustService())
+                .build()
+                .start();
+    }
+
+    /**
+     * Returns a builder for channels to this authority, to be passed to
+     * {@code AuthorityConnection.Builder}.
+     */
+    public ManagedChannelBuilder<?> channelBuilder() {
+        if (name != null) return InProcessChannelBuilder.forName(name).directExecutor();
+        return NettyChannelBuilder.forAddress(new InetSocketAddress(InetAddress.getLoopbackAddress(), server.getPort()))
+                .usePlaintext();
+    }
+
+    /**
+     * Returns the certificate responses are currently signed with.
+     */
+    public X509Certificate getCertificate() throws GeneralSecurityException, IOException {
+        return currentKey().certificate;
+    }
+
+    /**
+     * Signs all further responses with a new key. Clients keep verifying against the previous
+     * certificate until they refresh it, so their calls fail in between.
+     */
+    public synchronized void rotateCertificate() throws GeneralSecurityException, IOException {
+        signingKey = newSigningKey();
+    }
+
+    /**
+     * Number of sessions that have been started and have not ended yet.
+     */
+    public int getSessionCount() {
+        return sessions.size();
+    }
+
+    /**
+     * Number of calls received, including certificate requests.
+     */
+    public long getCallCount() {
+        return calls.get();
+    }
+
+    @Override
+    public void close() {
+        server.shutdownNow();
+        scheduler.shutdownNow();
+    }
+
+    /**
+     * Key store with a newly generated client key, for clients connecting to a fake authority.
+     */
+    public static KeyStore newClientKeyStore(String alias, char[] password) throws GeneralSecurityException, IOException {
+        Security.addProvider(new BouncyCastleProvider());
+        KeyPair keys = newKeyPair();
+        return keyStore(alias, password, keys, issue(new X500Name("CN=" + alias), keys));
+    }
+
+    private final class AuthService extends IntegrationAuthServiceGrpc.IntegrationAuthServiceImplBase {
+        @Override
+        public void init(InitAuthRequest request, StreamObserver<InitAuthResponse> responseObserver) {
+            Session session = startSession(request.getPayload());
+            unary(responseObserver, () -> {
+                InitAuthResponsePayload payload = InitAuthResponsePayload.newBuilder()
+                        .setResultCode(ResultCodeExtProtocol.OK)
+                        .setSessionId(session.id)
+                        .setExpiresAt(session.expiresAt)
+                        .build();
+                return InitAuthResponse.newBuilder().setPayload(payload).setSignature(signature(payload)).build();
+            });
+        }
+
+        @Override
+        public void check(AuthStatusRequest request, StreamObserver<AuthStatusResponse> responseObserver) {
+            stream(sessions.get(request.getPayload().getSessionId()), request.getPayload().getSessionId(), responseObserver, FakeAuthority.this::authStatus);
+        }
+
+        @Override
+        public void auth(InitAuthRequest request, StreamObserver<AuthStatusResponse> responseObserver) {
+            Session session = startSession(request.getPayload());
+            stream(session, session.id, responseObserver, FakeAuthority.this::authStatus);
+        }
+
+        @Override
+        public void cancel(CancelAuthRequest request, StreamObserver<CancelAuthResponse> responseObserver) {
+            ResultCodeExtProtocol resultCode = cancelSession(request.getPayload().getSessionId());
+            unary(responseObserver, () -> {
+                CancelAuthResponsePayload payload = CancelAuthResponsePayload.newBuilder()
+                        .setResultCode(resultCode)
+                        .build();
+                return CancelAuthResponse.newBuilder().setPayload(payload).setSignature(signature(payload)).build();
+            });
+        }
+    }
+
+    private final class SignService extends IntegrationSignServiceGrpc.IntegrationSignServiceImplBase {
+        @Override
+        public void init(InitSignRequest request, StreamObserver<InitSignResponse> responseObserver) {
+            Session session = new Session(UUID.randomUUID().toString(), null, false, false,
+                    System.currentTimeMillis() + SESSION_EXPIRY_MILLIS, 0, null);
+            sessions.put(session.id, session);
+            unary(responseObserver, () -> {
+                InitSignResponsePayload payload = InitSignResponsePayload.newBuilder()
+                        .setResultCode(ResultCodeExtProtocol.OK)
+                        .setSessionId(session.id)
+                        .setCertificate(ByteString.copyFrom(userCertificate.getEncoded()))
+                        .setExpiresAt(session.expiresAt)
+                        .build();
+                return InitSignResponse.newBuilder().setPayload(payload).setSignature(signature(payload)).build();
+            });
+        }
+
+        @Override
+        public void hash(SignHashRequest request, StreamObserver<SignHashResponse> responseObserver) {
+            String sessionId = request.getPayload().getSessionId();
+            Session signSession = sessions.get(sessionId);
+            Session signing = signSession != null && signSession.hashToSign == null && !signSession.cancelled
+                    ? new Session(signSession, request.getPayload().getHashToSign().toByteArray(), System.nanoTime() + pendingNanos, nextResult())
+                    : null;
+            stream(signing, sessionId, responseObserver, FakeAuthority.this::signStatus);
+        }
+
+        @Override
+        public void cancel(CancelSignRequest request, StreamObserver<CancelSignResponse> responseObserver) {
+            ResultCodeExtProtocol resultCode = cancelSession(request.getPayload().getSessionId());
+            unary(responseObserver, () -> {
+                CancelSignResponsePayload payload = CancelSignResponsePayload.newBuilder()
+                        .setResultCode(resultCode)
+                        .build();
+                return CancelSignResponse.newBuilder().setPayload(payload).setSignature(signature(payload)).build();
+            });
+        }
+    }
+
+    private final class TrustService extends IntegrationTrustServiceGrpc.IntegrationTrustServiceImplBase {
+        @Override
+        public void cert(CertificateRequest request, StreamObserver<CertificateResponse> responseObserver) {
+            unary(responseObserver, () -> {
+                CertificateResponsePayload payload = CertificateResponsePayload.newBuilder()
+                        .setResultCode(ResultCodeExtProtocol.OK)
+                        .setServerCertificate(ByteString.copyFrom(currentKey().certificate.getEncoded()))
+                        .build();
+                return CertificateResponse.newBuilder().setPayload(payload).setSignature(signature(payload)).build();
+            });
+        }
+    }
+
+    private Session startSession(InitAuthRequestPayload payload) {
+        Session session = new Session(UUID.randomUUID().toString(), payload.getHashToSign().toByteArray(),
+                payload.getExtractSubject(), payload.getWithReport(), System.currentTimeMillis() + SESSION_EXPIRY_MILLIS,
+                System.nanoTime() + pendingNanos, nextResult());
+        sessions.put(session.id, session);
+        return session;
+    }
+
+    private ResultCodeExtProtocol cancelSession(String sessionId) {
+        Session session = sessions.remove(sessionId);
+        if (session == null) return ResultCodeExtProtocol.NOT_FOUND;
+        session.cancelled = true;
+        return ResultCodeExtProtocol.OK;
+    }
+
+    private AuthStatusResponse authStatus(Session session, ResultCodeExtProtocol resultCode) throws Exception {
+        AuthStatusResponsePayload.Builder payload = AuthStatusResponsePayload.newBuilder()
+                .setResultCode(resultCode)
+                .setSessionId(session.id);
+        if (resultCode == ResultCodeExtProtocol.OK) {
+            payload.setCertificate(ByteString.copyFrom(userCertificate.getEncoded()))
+                    .setSignedHash(ByteString.copyFrom(sign(session.hashToSign, userKeys.getPrivate())));
+            if (session.subject) payload.putAllSubject(userSubject);
+            if (session.report) payload.setReport(ByteString.copyFrom(new byte[REPORT_SIZE]));
+        }
+        AuthStatusResponsePayload built = payload.build();
+        return AuthStatusResponse.newBuilder().setPayload(built).setSignature(signature(built)).build();
+    }
+
+    private SignHashResponse signStatus(Session session, ResultCodeExtProtocol resultCode) throws Exception {
+        SignHashResponsePayload.Builder payload = SignHashResponsePayload.newBuilder()
+                .setResultCode(resultCode)
+                .setSessionId(session.id);
+        if (resultCode == ResultCodeExtProtocol.OK) {
+            payload.setSignedHash(ByteString.copyFrom(sign(session.hashToSign, userKeys.getPrivate())));
+        }
+        SignHashResponsePayload built = payload.build();
+        return SignHashResponse.newBuilder().setPayload(built).setSignature(signature(built)).build();
+    }
+
+    private interface Response<T> {
+        T build() throws Exception;
+    }
+
+    private <T> void unary(StreamObserver<T> observer, Response<T> response) {
+        calls.incrementAndGet();
+        scheduler.schedule(() -> {
+            try {
+                observer.onNext(response.build());
+                observer.onCompleted();
+            } catch (Exception e) {
+                observer.onError(Status.INTERNAL.withCause(e).asException());
+            }
+        }, latency(), TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Streams {@code PENDING} frames until the session completes, then its final frame. A session
+     * that does not exist gets a single {@code NOT_FOUND} frame.
+     */
+    private <T> void stream(Session session, String sessionId, StreamObserver<T> observer, Frame<T> frame) {
+        calls.incrementAndGet();
+        ServerCallStreamObserver<T> call = (ServerCallStreamObserver<T>) observer;
+        call.setOnCancelHandler(() -> {
+        });
+        Session target = session != null ? session : new Session(sessionId, null, false, false, 0, 0, ResultCodeExtProtocol.NOT_FOUND);
+        Runnable emit = new Runnable() {
+            @Override
+            public void run() {
+                if (call.isCancelled()) return;
+                try {
+                    long remaining = target.completesAt - System.nanoTime();
+                    if (session != null && !target.isCancelled() && remaining > 0) {
+                        call.onNext(frame.build(target, ResultCodeExtProtocol.PENDING));
+                        scheduler.schedule(this, Math.min(remaining, statusIntervalNanos), TimeUnit.NANOSECONDS);
+                        return;
+                    }
+                    ResultCodeExtProtocol resultCode = target.isCancelled() ? ResultCodeExtProtocol.REFUSED : target.result;
+                    if (session != null) sessions.remove(sessionId, session);
+                    call.onNext(frame.build(target, resultCode));
+                    call.onCompleted();
+                } catch (Exception e) {
+                    call.onError(Status.INTERNAL.withCause(e).asException());
+                }
+            }
+        };
+        scheduler.schedule(emit, latency(), TimeUnit.NANOSECONDS);
+    }
+
+    private long latency() {
+        if (jitterNanos <= 0) return latencyNanos;
+        synchronized (random) {
+            return latencyNanos + (long) (random.nextDouble() * jitterNanos);
+        }
+    }
+
+    private ResultCodeExtProtocol nextResult() {
+        int draw;
+        synchronized (random) {
+            draw = random.nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+        }
+        for (int i = 0; i < cumulativeWeights.length; i++) {
+            if (draw < cumulativeWeights[i]) return results[i];
+        }
+        return results[results.length - 1];
+    }
+
+    private ByteString signature(AbstractMessage payload) throws GeneralSecurityException, IOException {
+        return ByteString.copyFrom(sign(sha256(payload.toByteArray()), currentKey().keys.getPrivate()));
+    }
+
+    private SigningKey currentKey() throws GeneralSecurityException, IOException {
+        SigningKey key = signingKey;
+        if (System.currentTimeMillis() < key.certificate.getNotAfter().getTime()) return key;
+        synchronized (this) {
+            if (signingKey == key) signingKey = newSigningKey();
+            return signingKey;
+        }
+    }
+
+    private SigningKey newSigningKey() throws GeneralSecurityException, IOException {
+        KeyPair keys = newKeyPair();
+        return new SigningKey(keys, issue(new X500Name("CN=Fake Authority"), keys, certificateValidityMillis));
+    }
+
+    private void purgeExpiredSessions() {
+        long now = System.currentTimeMillis();
+        sessions.values().removeIf(session -> session.expiresAt < now);
+    }
+}
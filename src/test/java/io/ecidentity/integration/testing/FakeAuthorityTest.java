@@ -0,0 +1,149 @@
+package io.ecidentity.integration.testing;
+
+import io.ecidentity.integration.client.AuthorityConnection;
+import io.ecidentity.integration.client.BlockingAuthClient;
+import io.ecidentity.integration.client.BlockingSignClient;
+import io.ecidentity.integration.client.ClientBase;
+import io.ecidentity.integration.client.ResponseIterator;
+import io.ecidentity.protocol.authority.AuthStatusResponsePayload;
+import io.ecidentity.protocol.authority.InitAuthResponsePayload;
+import io.ecidentity.protocol.authority.InitSignResponsePayload;
+import io.ecidentity.protocol.types.KeyEntryTypeProtocol;
+import io.ecidentity.protocol.types.ResultCodeExtProtocol;
+import org.junit.Test;
+
+import java.security.KeyStore;
+import java.security.cert.CertificateExpiredException;
+import java.security.cert.X509Certificate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static io.ecidentity.integration.utils.CryptoUtils.decodeX509Certificate;
+import static io.ecidentity.integration.utils.CryptoUtils.sha256;
+import static io.ecidentity.integration.utils.CryptoUtils.verify;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class FakeAuthorityTest {
+
+    private static final char[] PASSWORD = "password".toCharArray();
+
+    @Test
+    public void testAuthFlow() throws Exception {
+        try (FakeAuthority authority = new FakeAuthority.Builder()
+                .withPendingDuration(300, TimeUnit.MILLISECONDS)
+                .withStatusInterval(100, TimeUnit.MILLISECONDS)
+                .withLatency(5, 5, TimeUnit.MILLISECONDS)
+                .build()) {
+            AuthorityConnection connection = new AuthorityConnection.Builder(authority.channelBuilder()).build();
+            BlockingAuthClient client = new BlockingAuthClient.Builder(connection)
+                    .withAccessKey("access-key")
+                    .withKeyStore(clientKeyStore())
+                    .withPassword(PASSWORD)
+                    .build();
+            byte[] hash = sha256(new byte[]{1, 2, 3});
+
+            InitAuthResponsePayload init = client.init("mail@mail.com", KeyEntryTypeProtocol.EMAIL, hash, false, true, false);
+            List<AuthStatusResponsePayload> statuses = new ArrayList<>();
+            try (ResponseIterator<AuthStatusResponsePayload> iterator = client.check(init.getSessionId())) {
+                while (iterator.hasNext()) statuses.add(iterator.next());
+            }
+
+            assertTrue(statuses.size() > 1);
+            assertEquals(ResultCodeExtProtocol.PENDING, statuses.get(0).getResultCode());
+            AuthStatusResponsePayload last = statuses.get(statuses.size() - 1);
+            assertEquals(ResultCodeExtProtocol.OK, last.getResultCode());
+            assertFalse(last.getSubjectMap().isEmpty());
+            assertTrue(verify(hash, decodeX509Certificate(last.getCertificate().toByteArray()).getPublicKey(), last.getSignedHash().toByteArray()));
+            assertEquals(0, authority.getSessionCount());
+
+            client.shutdown();
+            connection.shutdown();
+        }
+    }
+
+    @Test
+    public void testResultCodeMix() throws Exception {
+        try (FakeAuthority authority = new FakeAuthority.Builder()
+                .withResultCode(ResultCodeExtProtocol.REFUSED, 1)
+                .build()) {
+            AuthorityConnection connection = new AuthorityConnection.Builder(authority.channelBuilder()).build();
+            BlockingSignClient client = new BlockingSignClient.Builder(connection)
+                    .withAccessKey("access-key")
+                    .withKeyStore(clientKeyStore())
+                    .withPassword(PASSWORD)
+                    .build();
+            long calls = authority.getCallCount();
+
+            InitSignResponsePayload init = client.init("mail@mail.com", KeyEntryTypeProtocol.EMAIL);
+            try {
+                client.hash(init.getSessionId(), sha256(init.getCertificate().toByteArray()));
+                fail("Refused session must fail");
+            } catch (RuntimeException e) {
+                assertTrue(String.valueOf(e.getMessage()).contains(ResultCodeExtProtocol.REFUSED.name()));
+            }
+            assertEquals(calls + 2, authority.getCallCount());
+
+            client.shutdown();
+            connection.shutdown();
+        }
+    }
+
+    @Test
+    public void testCertificateRotation() throws Exception {
+        try (FakeAuthority authority = new FakeAuthority.Builder()
+                .withCertificateValidity(1, TimeUnit.SECONDS)
+                .build()) {
+            AuthorityConnection connection = new AuthorityConnection.Builder(authority.channelBuilder()).build();
+            BlockingAuthClient client = new BlockingAuthClient.Builder(connection)
+                    .withAccessKey("access-key")
+                    .withKeyStore(clientKeyStore())
+                    .withPassword(PASSWORD)
+                    .build();
+            X509Certificate first = authority.getCertificate();
+
+            assertEquals(ResultCodeExtProtocol.OK, client.auth("mail@mail.com", KeyEntryTypeProtocol.EMAIL, sha256(new byte[0]), false, false, false).getResultCode());
+            awaitRotation(authority, first);
+            try {
+                client.auth("mail@mail.com", KeyEntryTypeProtocol.EMAIL, sha256(new byte[0]), false, false, false);
+                fail("Response verified against the expired certificate");
+            } catch (RuntimeException expected) {
+                // fails fast and starts the refresh
+                assertTrue(expected.getCause() instanceof CertificateExpiredException);
+            }
+            AuthStatusResponsePayload status = awaitAuth(client);
+            assertEquals(ResultCodeExtProtocol.OK, status.getResultCode());
+            decodeX509Certificate(status.getCertificate().toByteArray()).checkValidity();
+
+            client.shutdown();
+            connection.shutdown();
+        }
+    }
+
+    private static void awaitRotation(FakeAuthority authority, X509Certificate previous) throws Exception {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (previous.equals(authority.getCertificate())) {
+            if (System.nanoTime() > deadline) fail("Certificate was not rotated");
+            Thread.sleep(50);
+        }
+    }
+
+    private static AuthStatusResponsePayload awaitAuth(BlockingAuthClient client) throws Exception {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        for (; ; ) {
+            try {
+                return client.auth("mail@mail.com", KeyEntryTypeProtocol.EMAIL, sha256(new byte[0]), false, false, false);
+            } catch (RuntimeException e) {
+                if (!(e.getCause() instanceof CertificateExpiredException) || System.nanoTime() > deadline) throw e;
+                Thread.sleep(50);
+            }
+        }
+    }
+
+    private static KeyStore clientKeyStore() throws Exception {
+        return FakeAuthority.newClientKeyStore(ClientBase.DEFAULT_KEY_ALIAS, PASSWORD);
+    }
+}
@@ -0,0 +1,114 @@
+package io.ecidentity.integration.testing;
+
+import io.ecidentity.integration.utils.EcStyle;
+import org.bouncycastle.asn1.ASN1GeneralizedTime;
+import org.bouncycastle.asn1.DERPrintableString;
+import org.bouncycastle.asn1.DERUTF8String;
+import org.bouncycastle.asn1.x500.X500Name;
+import org.bouncycastle.asn1.x500.X500NameBuilder;
+import org.bouncycastle.cert.jcajce.JcaX509CertificateConverter;
+import org.bouncycastle.cert.jcajce.JcaX509v3CertificateBuilder;
+import org.bouncycastle.jce.provider.BouncyCastleProvider;
+import org.bouncycastle.operator.OperatorCreationException;
+import org.bouncycastle.operator.jcajce.JcaContentSignerBuilder;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.security.GeneralSecurityException;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.KeyStore;
+import java.security.Security;
+import java.security.cert.Certificate;
+import java.security.cert.CertificateException;
+import java.security.cert.X509Certificate;
+import java.security.spec.ECGenParameterSpec;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keys and self-signed certificates shaped like the ones the SDK handles, shared by the tests, the
+ * fake authority and the benchmarks.
+ */
+public final class TestCertificates {
+
+    /**
+     * Date of birth in the subject of {@link #userName}.
+     */
+    public static final Date BIRTH_DATE = new Date(315532800000L);
+
+    private static final long DEFAULT_VALIDITY_MILLIS = TimeUnit.DAYS.toMillis(365);
+    private static final AtomicLong SERIALS = new AtomicLong(System.currentTimeMillis());
+
+    static {
+        Security.addProvider(new BouncyCastleProvider());
+    }
+
+    private TestCertificates() {
+    }
+
+    /**
+     * New P-256 key pair.
+     */
+    public static KeyPair newKeyPair() throws GeneralSecurityException {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("EC");
+        generator.initialize(new ECGenParameterSpec("secp256r1"));
+        return generator.generateKeyPair();
+    }
+
+    /**
+     * Subject of a typical identity certificate, including a generalized time attribute.
+     */
+    public static X500Name userName() {
+        return userName("Jane");
+    }
+
+    public static X500Name userName(String givenName) {
+        return new X500NameBuilder(EcStyle.INSTANCE)
+                .addRDN(EcStyle.id, new DERPrintableString("38001085718"))
+                .addRDN(EcStyle.emailAddress, "mail@mail.com")
+                .addRDN(EcStyle.givenName, new DERUTF8String(givenName))
+                .addRDN(EcStyle.surname, new DERUTF8String("Doe"))
+                .addRDN(EcStyle.dateOfBirth, new ASN1GeneralizedTime(BIRTH_DATE))
+                .addRDN(EcStyle.gender, new DERPrintableString("F"))
+                .addRDN(EcStyle.countryOfCitizenship, new DERPrintableString("EE"))
+                .build();
+    }
+
+    /**
+     * Certificate of the key pair signed by itself, valid for a year.
+     */
+    public static X509Certificate issue(X500Name subject, KeyPair keys) throws GeneralSecurityException {
+        return issue(subject, keys, SERIALS.incrementAndGet(), DEFAULT_VALIDITY_MILLIS);
+    }
+
+    public static X509Certificate issue(X500Name subject, KeyPair keys, long validityMillis) throws GeneralSecurityException {
+        return issue(subject, keys, SERIALS.incrementAndGet(), validityMillis);
+    }
+
+    /**
+     * Certificate of the key pair signed by itself, valid from a minute ago for the given time.
+     */
+    public static X509Certificate issue(X500Name subject, KeyPair keys, long serial, long validityMillis) throws GeneralSecurityException {
+        long now = System.currentTimeMillis();
+        JcaX509v3CertificateBuilder builder = new JcaX509v3CertificateBuilder(subject, BigInteger.valueOf(serial),
+                new Date(now - TimeUnit.MINUTES.toMillis(1)), new Date(now + validityMillis), subject, keys.getPublic());
+        try {
+            return new JcaX509CertificateConverter().setProvider(BouncyCastleProvider.PROVIDER_NAME)
+                    .getCertificate(builder.build(new JcaContentSignerBuilder("SHA256withECDSA").build(keys.getPrivate())));
+        } catch (OperatorCreationException e) {
+            throw new CertificateException(e);
+        }
+    }
+
+    /**
+     * PKCS12 key store holding the key pair and its certificate under the alias.
+     */
+    public static KeyStore keyStore(String alias, char[] password, KeyPair keys, X509Certificate certificate) throws GeneralSecurityException, IOException {
+        KeyStore keyStore = KeyStore.getInstance("PKCS12");
+        keyStore.load(null, null);
+        keyStore.setKeyEntry(alias, keys.getPrivate(), password, new Certificate[]{certificate});
+        return keyStore;
+    }
+}
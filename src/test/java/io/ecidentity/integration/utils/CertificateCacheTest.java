@@ -0,0 +1,67 @@
+package io.ecidentity.integration.utils;
+
+import org.bouncycastle.asn1.x500.X500Name;
+import org.junit.Test;
+
+import java.math.BigInteger;
+import java.util.concurrent.TimeUnit;
+
+import static io.ecidentity.integration.testing.TestCertificates.issue;
+import static io.ecidentity.integration.testing.TestCertificates.newKeyPair;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+public class CertificateCacheTest {
+
+    @Test
+    public void testHitsAndEviction() throws Exception {
+        CertificateCache cache = new CertificateCache(2, 0, TimeUnit.SECONDS);
+        byte[] first = encoded(1);
+        byte[] second = encoded(2);
+        byte[] third = encoded(3);
+
+        assertSame(cache.decode(first), cache.decode(first.clone()));
+        cache.decode(second);
+        cache.decode(third);
+
+        assertEquals(2, cache.size());
+        assertEquals(1, cache.getEvictionCount());
+        assertEquals(1, cache.getHitCount());
+        assertEquals(3, cache.getMissCount());
+        assertEquals(0.25, cache.getHitRate(), 0);
+        assertEquals(BigInteger.valueOf(3), cache.decode(third).getSerialNumber());
+    }
+
+    @Test
+    public void testRecentlyUsedKept() throws Exception {
+        CertificateCache cache = new CertificateCache(2, 0, TimeUnit.SECONDS);
+        byte[] first = encoded(1);
+
+        Object decoded = cache.decode(first);
+        cache.decode(encoded(2));
+        cache.decode(first);
+        cache.decode(encoded(3));
+
+        assertSame(decoded, cache.decode(first));
+        assertEquals(1, cache.getEvictionCount());
+        assertEquals(2, cache.getHitCount());
+    }
+
+    @Test
+    public void testTimeToLive() throws Exception {
+        CertificateCache cache = new CertificateCache(16, 1, TimeUnit.MILLISECONDS);
+        byte[] encoded = encoded(1);
+
+        Object decoded = cache.decode(encoded);
+        Thread.sleep(5);
+
+        assertNotSame(decoded, cache.decode(encoded));
+        assertEquals(1, cache.getEvictionCount());
+        assertEquals(0, cache.getHitCount());
+    }
+
+    private static byte[] encoded(long serial) throws Exception {
+        return issue(new X500Name("CN=Test " + serial), newKeyPair(), serial, TimeUnit.DAYS.toMillis(1)).getEncoded();
+    }
+}
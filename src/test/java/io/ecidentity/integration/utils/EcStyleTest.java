@@ -0,0 +1,58 @@
+package io.ecidentity.integration.utils;
+
+import org.bouncycastle.asn1.ASN1Encodable;
+import org.bouncycastle.asn1.ASN1ObjectIdentifier;
+import org.bouncycastle.asn1.DERPrintableString;
+import org.bouncycastle.asn1.DERUTF8String;
+import org.bouncycastle.asn1.x500.X500Name;
+import org.bouncycastle.asn1.x500.X500NameBuilder;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashSet;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class EcStyleTest {
+
+    @Test
+    public void testToString() {
+        X500Name name = new X500NameBuilder(EcStyle.INSTANCE)
+                .addRDN(EcStyle.id, new DERPrintableString("38001085718"))
+                .addRDN(EcStyle.emailAddress, "mail@mail.com")
+                .addMultiValuedRDN(new ASN1ObjectIdentifier[]{EcStyle.givenName, EcStyle.surname},
+                        new ASN1Encodable[]{new DERUTF8String("Jane, \"J\""), new DERUTF8String("Doe+X")})
+                .addRDN(new ASN1ObjectIdentifier("1.2.3.4"), new DERUTF8String("#x"))
+                .build();
+
+        assertEquals("Id=38001085718,EmailAddress=mail@mail.com,Surname=Doe\\+X+GivenName=Jane\\, \\\"J\\\",1.2.3.4=\\#x",
+                name.toString());
+    }
+
+    @Test
+    public void testFromString() {
+        X500Name name = new X500Name(EcStyle.INSTANCE, "Id=1,e=a@b,GIVENNAME=Jane+Surname=Doe,OID.1.2.3=x,1.2.4=y");
+
+        assertEquals(5, name.getRDNs().length);
+        assertEquals("Id=1,EmailAddress=a@b,Surname=Doe+GivenName=Jane,1.2.3=x,1.2.4=y", name.toString());
+    }
+
+    @Test
+    public void testLookUp() {
+        assertSame(EcStyle.documentNumber, EcStyle.INSTANCE.attrNameToOID("DocumentNumber"));
+        assertSame(EcStyle.emailAddress, EcStyle.INSTANCE.attrNameToOID("E"));
+        assertEquals("PersonalNumber", EcStyle.INSTANCE.oidToDisplayName(EcStyle.personalNumber));
+        assertNull(EcStyle.INSTANCE.oidToDisplayName(new ASN1ObjectIdentifier("1.2")));
+        assertEquals(new HashSet<>(Arrays.asList("e", "emailaddress")),
+                new HashSet<>(Arrays.asList(EcStyle.INSTANCE.oidToAttrNames(EcStyle.emailAddress))));
+        assertArrayEquals(new String[0], EcStyle.INSTANCE.oidToAttrNames(new ASN1ObjectIdentifier("1.2")));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnknownName() {
+        EcStyle.INSTANCE.attrNameToOID("nickname");
+    }
+}
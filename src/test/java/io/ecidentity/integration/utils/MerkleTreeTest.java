@@ -0,0 +1,65 @@
+package io.ecidentity.integration.utils;
+
+import org.bouncycastle.jce.provider.BouncyCastleProvider;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.Security;
+import java.util.ArrayList;
+import java.util.List;
+
+import static io.ecidentity.integration.utils.CryptoUtils.sha256;
+import static io.ecidentity.integration.utils.CryptoUtils.sign;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class MerkleTreeTest {
+
+    @Test
+    public void testProofs() {
+        for (int size = 1; size <= 33; size++) {
+            List<byte[]> hashes = hashes(size);
+            MerkleTree tree = MerkleTree.build(hashes);
+            byte[] root = tree.getRoot();
+            for (int i = 0; i < size; i++) {
+                MerkleProof proof = tree.getProof(i);
+                assertTrue(proof.verify(hashes.get(i), root));
+                if (size > 1) assertFalse(proof.verify(hashes.get((i + 1) % size), root));
+            }
+        }
+    }
+
+    @Test
+    public void testParallelBuild() {
+        List<byte[]> hashes = hashes(10000);
+        MerkleTree tree = MerkleTree.build(hashes);
+        assertEquals(10000, tree.size());
+        assertArrayEquals(tree.getRoot(), MerkleTree.build(hashes).getRoot());
+        assertTrue(tree.getProof(9999).verify(hashes.get(9999), tree.getRoot()));
+    }
+
+    @Test
+    public void testSignedRoot() throws Exception {
+        Security.addProvider(new BouncyCastleProvider());
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("EC");
+        generator.initialize(256);
+        KeyPair keyPair = generator.generateKeyPair();
+
+        List<byte[]> hashes = hashes(5);
+        MerkleTree tree = MerkleTree.build(hashes);
+        byte[] signedRoot = sign(tree.getRoot(), keyPair.getPrivate());
+
+        assertTrue(tree.getProof(3).verify(hashes.get(3), tree.getRoot(), signedRoot, keyPair.getPublic()));
+        assertFalse(tree.getProof(3).verify(hashes.get(2), tree.getRoot(), signedRoot, keyPair.getPublic()));
+    }
+
+    private static List<byte[]> hashes(int size) {
+        List<byte[]> hashes = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) hashes.add(sha256(ByteBuffer.allocate(Integer.BYTES).putInt(i).array()));
+        return hashes;
+    }
+}
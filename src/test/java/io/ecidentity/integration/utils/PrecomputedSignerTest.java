@@ -0,0 +1,46 @@
+package io.ecidentity.integration.utils;
+
+import org.junit.Test;
+
+import java.security.InvalidKeyException;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.Signature;
+
+import static io.ecidentity.integration.testing.TestCertificates.newKeyPair;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class PrecomputedSignerTest {
+
+    @Test
+    public void testSignaturesVerify() throws Exception {
+        KeyPair keys = newKeyPair();
+        PrecomputedSigner signer = new PrecomputedSigner(keys.getPrivate());
+        byte[] hash = CryptoUtils.sha256("payload".getBytes());
+        byte[] signature = signer.sign(hash);
+
+        assertTrue(CryptoUtils.verify(hash, keys.getPublic(), signature));
+        Signature jca = Signature.getInstance("SHA256withECDSA");
+        jca.initVerify(keys.getPublic());
+        jca.update(hash);
+        assertTrue(jca.verify(signature));
+        assertFalse(CryptoUtils.verify(CryptoUtils.sha256("other".getBytes()), keys.getPublic(), signature));
+    }
+
+    @Test
+    public void testDeterministic() throws Exception {
+        KeyPair keys = newKeyPair();
+        byte[] hash = CryptoUtils.sha256("payload".getBytes());
+
+        assertArrayEquals(new PrecomputedSigner(keys.getPrivate()).sign(hash), new PrecomputedSigner(keys.getPrivate()).sign(hash));
+    }
+
+    @Test(expected = InvalidKeyException.class)
+    public void testRejectsNonEcKey() throws Exception {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+        generator.initialize(1024);
+        new PrecomputedSigner(generator.generateKeyPair().getPrivate());
+    }
+}
@@ -0,0 +1,36 @@
+package io.ecidentity.integration.utils;
+
+import org.junit.Test;
+
+import java.security.KeyPair;
+import java.security.SignatureException;
+
+import static io.ecidentity.integration.testing.TestCertificates.newKeyPair;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class PrecomputedVerifierTest {
+
+    @Test
+    public void testVerify() throws Exception {
+        KeyPair keys = newKeyPair();
+        PrecomputedVerifier verifier = new PrecomputedVerifier(keys.getPublic());
+        byte[] hash = CryptoUtils.sha256("payload".getBytes());
+
+        assertTrue(verifier.verify(hash, CryptoUtils.sign(hash, keys.getPrivate())));
+        assertTrue(verifier.verify(hash, new PrecomputedSigner(keys.getPrivate()).sign(hash)));
+        assertFalse(verifier.verify(CryptoUtils.sha256("other".getBytes()), CryptoUtils.sign(hash, keys.getPrivate())));
+        assertFalse(verifier.verify(hash, CryptoUtils.sign(hash, newKeyPair().getPrivate())));
+    }
+
+    @Test(expected = SignatureException.class)
+    public void testMalformedSignature() throws Exception {
+        KeyPair keys = newKeyPair();
+        byte[] hash = CryptoUtils.sha256("payload".getBytes());
+        byte[] signature = CryptoUtils.sign(hash, keys.getPrivate());
+        byte[] padded = new byte[signature.length + 1];
+        System.arraycopy(signature, 0, padded, 0, signature.length);
+
+        new PrecomputedVerifier(keys.getPublic()).verify(hash, padded);
+    }
+}
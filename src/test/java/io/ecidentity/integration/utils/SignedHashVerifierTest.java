@@ -0,0 +1,65 @@
+package io.ecidentity.integration.utils;
+
+import org.bouncycastle.asn1.x500.X500Name;
+import org.junit.Test;
+
+import java.security.KeyPair;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static io.ecidentity.integration.testing.TestCertificates.issue;
+import static io.ecidentity.integration.testing.TestCertificates.newKeyPair;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class SignedHashVerifierTest {
+
+    @Test
+    public void testVerify() throws Exception {
+        SignedHashVerifier verifier = new SignedHashVerifier(16, 0, TimeUnit.SECONDS);
+        KeyPair keys = newKeyPair();
+        byte[] certificate = certificate(keys);
+        byte[] hash = CryptoUtils.sha256("document".getBytes());
+        byte[] signedHash = CryptoUtils.sign(hash, keys.getPrivate());
+
+        assertTrue(verifier.verify(hash, certificate, signedHash));
+        assertFalse(verifier.verify(CryptoUtils.sha256("other".getBytes()), certificate, signedHash));
+        assertFalse(verifier.verify(hash, certificate(newKeyPair()), signedHash));
+    }
+
+    @Test
+    public void testKeyCache() throws Exception {
+        SignedHashVerifier verifier = new SignedHashVerifier(16, 0, TimeUnit.SECONDS);
+        byte[] certificate = certificate(newKeyPair());
+
+        assertSame(verifier.publicKey(certificate), verifier.publicKey(certificate.clone()));
+        assertEquals(1, verifier.size());
+        assertEquals(1, verifier.getHitCount());
+        assertEquals(1, verifier.getMissCount());
+    }
+
+    @Test
+    public void testVerifyAll() throws Exception {
+        SignedHashVerifier verifier = new SignedHashVerifier(16, 0, TimeUnit.SECONDS);
+        KeyPair keys = newKeyPair();
+        byte[] certificate = certificate(keys);
+        List<SignedHashVerifier.SignedHash> batch = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            byte[] hash = CryptoUtils.sha256(new byte[]{(byte) i});
+            batch.add(new SignedHashVerifier.SignedHash(hash, certificate, CryptoUtils.sign(hash, keys.getPrivate())));
+        }
+        batch.add(new SignedHashVerifier.SignedHash(new byte[32], certificate, new byte[]{1, 2, 3}));
+        batch.add(new SignedHashVerifier.SignedHash(new byte[32], new byte[]{1, 2, 3}, new byte[]{1, 2, 3}));
+
+        assertArrayEquals(new boolean[]{true, true, true, true, true, true, true, true, false, false}, verifier.verifyAll(batch));
+        assertEquals(1, verifier.size());
+    }
+
+    private static byte[] certificate(KeyPair keys) throws Exception {
+        return issue(new X500Name("CN=Signer"), keys).getEncoded();
+    }
+}
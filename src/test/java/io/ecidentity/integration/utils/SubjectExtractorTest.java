@@ -0,0 +1,59 @@
+package io.ecidentity.integration.utils;
+
+import org.junit.Test;
+
+import java.security.cert.X509Certificate;
+import java.text.SimpleDateFormat;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static io.ecidentity.integration.testing.TestCertificates.BIRTH_DATE;
+import static io.ecidentity.integration.testing.TestCertificates.issue;
+import static io.ecidentity.integration.testing.TestCertificates.newKeyPair;
+import static io.ecidentity.integration.testing.TestCertificates.userName;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+public class SubjectExtractorTest {
+
+    @Test
+    public void testDecode() throws Exception {
+        Map<String, String> subject = SubjectExtractor.decode(certificate("Jane", 1));
+
+        assertEquals(7, subject.size());
+        assertEquals("38001085718", subject.get(CryptoUtils.ID));
+        assertEquals("mail@mail.com", subject.get(CryptoUtils.EMAIL));
+        assertEquals("Jane", subject.get(CryptoUtils.FIRST_NAME));
+        assertEquals("Doe", subject.get(CryptoUtils.LAST_NAME));
+        assertEquals("F", subject.get(CryptoUtils.GENDER));
+        assertEquals("EE", subject.get(CryptoUtils.CITIZENSHIP));
+        assertEquals(new SimpleDateFormat(CryptoUtils.DATE_FORMAT).format(BIRTH_DATE), subject.get(CryptoUtils.BIRTH_DATE));
+    }
+
+    @Test
+    public void testCache() throws Exception {
+        SubjectExtractor extractor = new SubjectExtractor(2);
+        X509Certificate jane = certificate("Jane", 1);
+        X509Certificate john = certificate("John", 2);
+        X509Certificate mary = certificate("Mary", 3);
+
+        Map<String, String> first = extractor.extract(jane);
+        assertSame(first, extractor.extract(jane));
+        assertEquals("John", extractor.extract(john).get(CryptoUtils.FIRST_NAME));
+        extractor.extract(jane);
+        extractor.extract(mary);
+
+        assertEquals(2, extractor.size());
+        assertSame(first, extractor.extract(jane));
+        assertSame(first, extractor.extract(jane.getEncoded()));
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testImmutable() throws Exception {
+        SubjectExtractor.decode(certificate("Jane", 1)).put(CryptoUtils.FIRST_NAME, "John");
+    }
+
+    private static X509Certificate certificate(String givenName, long serial) throws Exception {
+        return issue(userName(givenName), newKeyPair(), serial, TimeUnit.DAYS.toMillis(1));
+    }
+}